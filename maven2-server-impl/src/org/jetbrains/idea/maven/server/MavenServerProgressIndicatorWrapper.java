@@ -19,7 +19,7 @@ public class MavenServerProgressIndicatorWrapper extends MavenRemoteObject
   private final ConcurrentLinkedQueue<MavenServerConsoleEvent> myConsoleEventsQueue
           = new ConcurrentLinkedQueue<MavenServerConsoleEvent>();
 
-  private boolean myCancelled = false;
+  private volatile boolean myCancelled = false;
 
 
   @Override
@@ -0,0 +1,88 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.idea.maven.server.embedder;
+
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.jdom.Element;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plugin configurations converted by {@link Maven2ModelConverter} during one {@link Maven2ServerEmbedderImpl#resolveProjects} call.
+ * <p>
+ * The project builder clones inherited configurations for every child project, so equal configurations are different
+ * {@link Xpp3Dom} instances. They are found by a digest of what the converter reads (element names, and values of elements without
+ * children), computed once per instance.
+ */
+final class ConfigurationCache {
+  private final Map<Xpp3Dom, String> myDigests = Collections.synchronizedMap(new IdentityHashMap<Xpp3Dom, String>());
+  private final Map<String, Element> myElements = new ConcurrentHashMap<String, Element>();
+
+  @Nullable
+  Element get(@NotNull Xpp3Dom xpp) {
+    return myElements.get(getDigest(xpp));
+  }
+
+  void put(@NotNull Xpp3Dom xpp, @NotNull Element element) {
+    myElements.putIfAbsent(getDigest(xpp), element);
+  }
+
+  @NotNull
+  private String getDigest(@NotNull Xpp3Dom xpp) {
+    String result = myDigests.get(xpp);
+    if (result == null) {
+      try {
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        update(digest, xpp);
+        StringBuilder builder = new StringBuilder();
+        for (byte each : digest.digest()) {
+          builder.append(Character.forDigit((each >> 4) & 0xF, 16)).append(Character.forDigit(each & 0xF, 16));
+        }
+        result = builder.toString();
+      }
+      catch (NoSuchAlgorithmException e) {
+        throw new RuntimeException(e);
+      }
+      myDigests.put(xpp, result);
+    }
+    return result;
+  }
+
+  private static void update(MessageDigest digest, Xpp3Dom xpp) {
+    update(digest, xpp.getName());
+    Xpp3Dom[] children = xpp.getChildren();
+    if (children == null || children.length == 0) {
+      digest.update((byte)0);
+      update(digest, xpp.getValue());
+    }
+    else {
+      digest.update((byte)1);
+      for (Xpp3Dom each : children) {
+        update(digest, each);
+      }
+    }
+    // ends the children, so that siblings are not taken for children
+    digest.update((byte)2);
+  }
+
+  private static void update(MessageDigest digest, @Nullable String value) {
+    if (value == null) {
+      digest.update((byte)0xFF);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    // lengths keep "ab" + "c" apart from "a" + "bc"
+    digest.update((byte)(bytes.length >>> 24));
+    digest.update((byte)(bytes.length >>> 16));
+    digest.update((byte)(bytes.length >>> 8));
+    digest.update((byte)bytes.length);
+    digest.update(bytes);
+  }
+}
@@ -15,18 +15,19 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class CustomArtifact implements Artifact {
-  private static final Map<String, File> ourStubCache = new HashMap<String, File>();
-  private static final ReentrantReadWriteLock ourCacheLock = new ReentrantReadWriteLock();
-  private static final Lock ourCacheReadLock = ourCacheLock.readLock();
-  private static final Lock ourCacheWriteLock = ourCacheLock.writeLock();
+  private static final AtomicLong ourStubHits = new AtomicLong();
+  private static final AtomicLong ourStubMisses = new AtomicLong();
+  private static File ourStubDirectory;
 
   private final Artifact myWrapee;
   private volatile boolean isStub;
@@ -93,48 +94,48 @@ public class CustomArtifact implements Artifact {
 
     isStub = true;
 
-    ourCacheReadLock.lock();
     try {
-      f = ourStubCache.get(getId());
-    }
-    finally {
-      ourCacheReadLock.unlock();
-    }
-
-    if (f != null) {
-      myWrapee.setFile(f);
-      return;
-    }
-
-    ourCacheWriteLock.lock();
-    try {
-      f = ourStubCache.get(getId());
-      if (f != null) {
-        myWrapee.setFile(f);
+      // the content depends on the id only, so there is one stub per id, named by its hash, shared by all the artifacts with the id
+      File stub = new File(getStubDirectory(), getStubName(getId()));
+      if (stub.exists()) {
+        ourStubHits.incrementAndGet();
+        myWrapee.setFile(stub);
         return;
       }
+      ourStubMisses.incrementAndGet();
 
-      f = FileUtilRt.createTempFile("idea.maven.stub", ".pom");
-      f.deleteOnExit();
-
-      FileOutputStream s = new FileOutputStream(f);
+      // concurrent writers of the same stub each write their own file and move it in place, readers never see a partial file
+      File temp = File.createTempFile("stub", ".tmp", stub.getParentFile());
       try {
-        PrintWriter w = new PrintWriter(s);
-        w.println("<project>");
-        w.println("<modelVersion>4.0.0</modelVersion>");
-        w.println("<packaging>pom</packaging>");
-        w.println("<groupId>" + getGroupId() + "</groupId>");
-        w.println("<artifactId>" + getArtifactId() + "</artifactId>");
-        w.println("<version>" + getVersion() + "</version>");
-        w.println("</project>");
-        w.flush();
+        FileOutputStream s = new FileOutputStream(temp);
+        try {
+          PrintWriter w = new PrintWriter(s);
+          w.println("<project>");
+          w.println("<modelVersion>4.0.0</modelVersion>");
+          w.println("<packaging>pom</packaging>");
+          w.println("<groupId>" + getGroupId() + "</groupId>");
+          w.println("<artifactId>" + getArtifactId() + "</artifactId>");
+          w.println("<version>" + getVersion() + "</version>");
+          w.println("</project>");
+          w.flush();
+        }
+        finally {
+          s.close();
+        }
+
+        try {
+          Files.move(temp.toPath(), stub.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+          Files.move(temp.toPath(), stub.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        stub.deleteOnExit();
       }
       finally {
-        s.close();
+        temp.delete();
       }
 
-      myWrapee.setFile(f);
-      ourStubCache.put(getId(), f);
+      myWrapee.setFile(stub);
     }
     catch (IOException e) {
       // todo
@@ -145,11 +146,37 @@ public class CustomArtifact implements Artifact {
       //  throw new RuntimeRemoteException(e1);
       //}
     }
-    finally {
-      ourCacheWriteLock.unlock();
+  }
+
+  private static synchronized File getStubDirectory() throws IOException {
+    if (ourStubDirectory == null || !ourStubDirectory.isDirectory()) {
+      ourStubDirectory = FileUtilRt.createTempDirectory("idea.maven.stubs", null, true);
+    }
+    return ourStubDirectory;
+  }
+
+  private static String getStubName(String id) {
+    try {
+      byte[] digest = MessageDigest.getInstance("MD5").digest(id.getBytes(StandardCharsets.UTF_8));
+      StringBuilder result = new StringBuilder(digest.length * 2 + 4);
+      for (byte each : digest) {
+        result.append(Character.forDigit((each >> 4) & 0xF, 16)).append(Character.forDigit(each & 0xF, 16));
+      }
+      return result.append(".pom").toString();
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
     }
   }
 
+  public static long getStubHits() {
+    return ourStubHits.get();
+  }
+
+  public static long getStubMisses() {
+    return ourStubMisses.get();
+  }
+
   @Override
   public void setFile(File destination) {
     myWrapee.setFile(destination);
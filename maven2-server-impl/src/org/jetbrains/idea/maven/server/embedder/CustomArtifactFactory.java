@@ -20,9 +20,20 @@ import org.apache.maven.artifact.versioning.VersionRange;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.artifact.ProjectArtifactFactory;
 
+import java.util.function.Function;
+
 public class CustomArtifactFactory extends ProjectArtifactFactory {
+  /**
+   * Canonicalizes coordinates and version ranges of created artifacts to reduce memory used by large dependency graphs.
+   */
+  public static final String INTERN_PROPERTY = "idea.maven2.intern.artifacts";
+
   private static final VersionRange UNKNOWN_VERSION_RANGE = VersionRange.createFromVersion("unknown");
 
+  private static final boolean ourIntern = Boolean.getBoolean(INTERN_PROPERTY);
+  private static final WeakInterner<String> ourStrings = new WeakInterner<String>(Function.identity());
+  private static final WeakInterner<VersionRange> ourVersionRanges = new WeakInterner<VersionRange>(VersionRange::toString);
+
   private boolean myCustomized;
 
   public void customize() {
@@ -35,37 +46,37 @@ public class CustomArtifactFactory extends ProjectArtifactFactory {
 
   @Override
   public Artifact createArtifact(String groupId, String artifactId, String version, String scope, String type) {
-      return wrap(super.createArtifact(checkValue(groupId), checkValue(artifactId), checkVersion(version), scope, type));
+      return wrap(super.createArtifact(checkValue(groupId), checkValue(artifactId), checkVersion(version), intern(scope), intern(type)));
   }
 
   @Override
   public Artifact createArtifactWithClassifier(String groupId, String artifactId, String version, String type, String classifier) {
-      return wrap(super.createArtifactWithClassifier(checkValue(groupId), checkValue(artifactId), checkVersion(version), type, classifier));
+      return wrap(super.createArtifactWithClassifier(checkValue(groupId), checkValue(artifactId), checkVersion(version), intern(type), intern(classifier)));
   }
 
   @Override
   public Artifact createDependencyArtifact(String groupId, String artifactId, VersionRange versionRange, String type, String classifier, String scope) {
-      return wrap(super.createDependencyArtifact(checkValue(groupId), checkValue(artifactId), checkVersionRange(versionRange), type, classifier, scope));
+      return wrap(super.createDependencyArtifact(checkValue(groupId), checkValue(artifactId), checkVersionRange(versionRange), intern(type), intern(classifier), intern(scope)));
   }
 
   @Override
   public Artifact createDependencyArtifact(String groupId, String artifactId, VersionRange versionRange, String type, String classifier, String scope, boolean optional) {
-      return wrap(super.createDependencyArtifact(checkValue(groupId), checkValue(artifactId), checkVersionRange(versionRange), type, classifier, scope, optional));
+      return wrap(super.createDependencyArtifact(checkValue(groupId), checkValue(artifactId), checkVersionRange(versionRange), intern(type), intern(classifier), intern(scope), optional));
   }
 
   @Override
   public Artifact createDependencyArtifact(String groupId, String artifactId, VersionRange versionRange, String type, String classifier, String scope, String inheritedScope) {
-      return wrap(super.createDependencyArtifact(checkValue(groupId), checkValue(artifactId), checkVersionRange(versionRange), type, classifier, scope, inheritedScope));
+      return wrap(super.createDependencyArtifact(checkValue(groupId), checkValue(artifactId), checkVersionRange(versionRange), intern(type), intern(classifier), intern(scope), intern(inheritedScope)));
   }
 
   @Override
   public Artifact createDependencyArtifact(String groupId, String artifactId, VersionRange versionRange, String type, String classifier, String scope, String inheritedScope, boolean optional) {
-      return wrap(super.createDependencyArtifact(checkValue(groupId), checkValue(artifactId), checkVersionRange(versionRange), type, classifier, scope, inheritedScope, optional));
+      return wrap(super.createDependencyArtifact(checkValue(groupId), checkValue(artifactId), checkVersionRange(versionRange), intern(type), intern(classifier), intern(scope), intern(inheritedScope), optional));
   }
 
   @Override
   public Artifact createBuildArtifact(String groupId, String artifactId, String version, String packaging) {
-      return wrap(super.createBuildArtifact(checkValue(groupId), checkValue(artifactId), checkVersion(version), packaging));
+      return wrap(super.createBuildArtifact(checkValue(groupId), checkValue(artifactId), checkVersion(version), intern(packaging)));
   }
 
   @Override
@@ -85,7 +96,7 @@ public class CustomArtifactFactory extends ProjectArtifactFactory {
 
   @Override
   public Artifact createProjectArtifact(String groupId, String artifactId, String version, String scope) {
-      return wrap(super.createProjectArtifact(checkValue(groupId), checkValue(artifactId), checkVersion(version), scope));
+      return wrap(super.createProjectArtifact(checkValue(groupId), checkValue(artifactId), checkVersion(version), intern(scope)));
   }
 
   @Override
@@ -100,7 +111,7 @@ public class CustomArtifactFactory extends ProjectArtifactFactory {
 
   @Override
   public Artifact create(MavenProject project, String type, String classifier, boolean optional) {
-    return wrap(super.create(project, type, classifier, optional));
+    return wrap(super.create(project, intern(type), intern(classifier), optional));
   }
 
   private Artifact wrap(Artifact a) {
@@ -109,14 +120,38 @@ public class CustomArtifactFactory extends ProjectArtifactFactory {
   }
 
   private String checkValue(String value) {
-    return value == null || value.trim().length() == 0 ? "error" : value;
+    return value == null || value.trim().length() == 0 ? "error" : intern(value);
   }
 
   private String checkVersion(String value) {
-    return value == null ? "unknown" : value;
+    return value == null ? "unknown" : intern(value);
   }
 
   private VersionRange checkVersionRange(VersionRange range) {
-    return range == null ? UNKNOWN_VERSION_RANGE : range;
+    if (range == null) return UNKNOWN_VERSION_RANGE;
+    return ourIntern ? ourVersionRanges.intern(range) : range;
+  }
+
+  private static String intern(String value) {
+    return ourIntern ? ourStrings.intern(value) : value;
+  }
+
+  public static boolean isInterning() {
+    return ourIntern;
+  }
+
+  /**
+   * @return number of canonical strings and version ranges currently held
+   */
+  public static int getInternedCount() {
+    return ourStrings.size() + ourVersionRanges.size();
+  }
+
+  public static long getInternHits() {
+    return ourStrings.getHits() + ourVersionRanges.getHits();
+  }
+
+  public static long getInternMisses() {
+    return ourStrings.getMisses() + ourVersionRanges.getMisses();
   }
 }
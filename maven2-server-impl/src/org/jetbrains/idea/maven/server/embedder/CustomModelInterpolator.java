@@ -20,10 +20,35 @@ import org.apache.maven.project.ProjectBuilderConfiguration;
 import org.apache.maven.project.interpolation.ModelInterpolationException;
 import org.apache.maven.project.interpolation.StringSearchModelInterpolator;
 import org.apache.maven.project.path.DefaultPathTranslator;
+import org.codehaus.plexus.interpolation.*;
+import org.codehaus.plexus.logging.Logger;
 
 import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.*;
 
+/**
+ * Same interpolation as {@link StringSearchModelInterpolator}, safe to run for several models at once: the traversal is copied from
+ * {@code StringSearchModelInterpolator.InterpolateObjectAction}, but each call uses its own interpolator and recursion interceptor
+ * instead of the shared ones, and fields are looked up in a thread-safe cache instead of the static {@code WeakHashMap}s.
+ */
 public class CustomModelInterpolator extends StringSearchModelInterpolator {
+  private static final List<String> PROJECT_PREFIXES = Arrays.asList("pom.", "project.");
+
+  private static final ClassValue<Field[]> ourFields = new ClassValue<Field[]>() {
+    @Override
+    protected Field[] computeValue(Class<?> type) {
+      List<Field> result = new ArrayList<Field>();
+      for (Field each : type.getDeclaredFields()) {
+        if (each.getType().isPrimitive() || "parent".equals(each.getName())) continue;
+        each.setAccessible(true);
+        result.add(each);
+      }
+      return result.toArray(new Field[0]);
+    }
+  };
+
   public CustomModelInterpolator() {
   }
 
@@ -34,20 +59,209 @@ public class CustomModelInterpolator extends StringSearchModelInterpolator {
   @Override
   protected void interpolateObject(Object obj, Model model, File projectDir, ProjectBuilderConfiguration config, boolean debugEnabled)
     throws ModelInterpolationException {
-    // IDEA-74131 avoid concurrent access to the static cache in StringSearchModelInterpolator
-    synchronized (CustomModelInterpolator.class) {
+    try {
+      new ObjectInterpolation(createValueSources(model, projectDir, config),
+                              createPostProcessors(model, projectDir, config),
+                              debugEnabled).run(obj);
+    }
+    catch (NullPointerException e) {
+      // npe may be thrown from here:
+      //at org.apache.maven.project.interpolation.StringSearchModelInterpolator$InterpolateObjectAction.isQualifiedForInterpolation(StringSearchModelInterpolator.java:344)
+      //at org.apache.maven.project.interpolation.StringSearchModelInterpolator$InterpolateObjectAction.traverseObjectWithParents(StringSearchModelInterpolator.java:172)
+      //at org.apache.maven.project.interpolation.StringSearchModelInterpolator$InterpolateObjectAction.traverseObjectWithParents(StringSearchModelInterpolator.java:328)
+      //at org.apache.maven.project.interpolation.StringSearchModelInterpolator$InterpolateObjectAction.run(StringSearchModelInterpolator.java:135)
+      //at org.apache.maven.project.interpolation.StringSearchModelInterpolator$InterpolateObjectAction.run(StringSearchModelInterpolator.java:102)
+      throw new ModelInterpolationException("Cannot interpolate", e);
+    }
+  }
+
+  private final class ObjectInterpolation {
+    private final StringSearchInterpolator myInterpolator = new StringSearchInterpolator();
+    private final RecursionInterceptor myRecursionInterceptor = new PrefixAwareRecursionInterceptor(PROJECT_PREFIXES);
+    private final LinkedList<Object> myTargets = new LinkedList<Object>();
+    private final boolean myDebug;
+
+    private ObjectInterpolation(List<ValueSource> valueSources, List<InterpolationPostProcessor> postProcessors, boolean debug) {
+      myInterpolator.setCacheAnswers(true);
+      for (ValueSource each : valueSources) {
+        myInterpolator.addValueSource(each);
+      }
+      for (InterpolationPostProcessor each : postProcessors) {
+        myInterpolator.addPostProcessor(each);
+      }
+      myDebug = debug;
+    }
+
+    private void run(Object target) throws ModelInterpolationException {
+      myTargets.add(target);
+      while (!myTargets.isEmpty()) {
+        Object each = myTargets.removeFirst();
+        traverseObjectWithParents(each.getClass(), each);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void traverseObjectWithParents(Class<?> cls, Object target) throws ModelInterpolationException {
+      if (cls == null) return;
+
+      if (cls.isArray()) {
+        evaluateArray(target);
+        return;
+      }
+      if (cls.getPackage().getName().startsWith("java")) return;
+
+      for (Field field : ourFields.get(cls)) {
+        Class<?> type = field.getType();
+        try {
+          if (String.class == type) {
+            String value = (String)field.get(target);
+            if (value != null) {
+              String interpolated = interpolate(value);
+              if (!interpolated.equals(value)) {
+                field.set(target, interpolated);
+              }
+            }
+          }
+          else if (Collection.class.isAssignableFrom(type)) {
+            Collection<Object> c = (Collection<Object>)field.get(target);
+            if (c == null || c.isEmpty()) continue;
+
+            List<Object> originalValues = new ArrayList<Object>(c);
+            try {
+              c.clear();
+            }
+            catch (UnsupportedOperationException e) {
+              debug("Skipping interpolation of field: " + field + " in: " + cls.getName() + "; it is an unmodifiable collection.");
+              continue;
+            }
+
+            for (Object value : originalValues) {
+              if (value != null && String.class == value.getClass()) {
+                String interpolated = interpolate((String)value);
+                c.add(interpolated.equals(value) ? value : interpolated);
+              }
+              else {
+                c.add(value);
+                if (value != null) addTarget(value);
+              }
+            }
+          }
+          else if (Map.class.isAssignableFrom(type)) {
+            Map<Object, Object> m = (Map<Object, Object>)field.get(target);
+            if (m == null || m.isEmpty()) continue;
+
+            for (Map.Entry<Object, Object> entry : m.entrySet()) {
+              Object value = entry.getValue();
+              if (value == null) continue;
+
+              if (String.class == value.getClass()) {
+                String interpolated = interpolate((String)value);
+                if (!interpolated.equals(value)) {
+                  try {
+                    entry.setValue(interpolated);
+                  }
+                  catch (UnsupportedOperationException e) {
+                    debug("Skipping interpolation of field: " + field + " (key: " + entry.getKey() + ") in: " + cls.getName() +
+                          "; it is an unmodifiable collection.");
+                  }
+                }
+              }
+              else {
+                addTarget(value);
+              }
+            }
+          }
+          else {
+            Object value = field.get(target);
+            if (value != null) {
+              if (type.isArray()) {
+                evaluateArray(value);
+              }
+              else {
+                myTargets.add(value);
+              }
+            }
+          }
+        }
+        catch (IllegalArgumentException | IllegalAccessException e) {
+          throw new ModelInterpolationException("Failed to interpolate field: " + field + " on class: " + cls.getName(), e);
+        }
+      }
+
+      traverseObjectWithParents(cls.getSuperclass(), target);
+    }
+
+    private void addTarget(Object value) throws ModelInterpolationException {
+      if (value.getClass().isArray()) {
+        evaluateArray(value);
+      }
+      else {
+        myTargets.add(value);
+      }
+    }
+
+    private void evaluateArray(Object target) throws ModelInterpolationException {
+      int length = Array.getLength(target);
+      for (int i = 0; i < length; i++) {
+        Object value = Array.get(target, i);
+        if (value == null) continue;
+
+        if (String.class == value.getClass()) {
+          String interpolated = interpolate((String)value);
+          if (!interpolated.equals(value)) {
+            Array.set(target, i, interpolated);
+          }
+        }
+        else {
+          myTargets.add(value);
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private String interpolate(String value) throws ModelInterpolationException {
+      if (!value.contains("${")) return value;
+
+      String result;
       try {
-        super.interpolateObject(obj, model, projectDir, config, debugEnabled);
+        result = myInterpolator.interpolate(value, myRecursionInterceptor);
+      }
+      catch (InterpolationException e) {
+        throw new ModelInterpolationException(e.getMessage(), e);
+      }
+
+      List<Object> feedback = (List<Object>)myInterpolator.getFeedback();
+      if (myDebug && feedback != null && !feedback.isEmpty()) {
+        debug("Maven encountered the following problems during initial POM interpolation:");
+        Object last = null;
+        for (Object next : feedback) {
+          if (next instanceof Throwable) {
+            debug(last == null ? "" : String.valueOf(last), (Throwable)next);
+          }
+          else {
+            if (last != null) debug(String.valueOf(last));
+            last = next;
+          }
+        }
+        if (last != null) debug(String.valueOf(last));
+      }
+      myInterpolator.clearFeedback();
+      return result;
+    }
+
+    private void debug(String message) {
+      debug(message, null);
+    }
+
+    private void debug(String message, Throwable e) {
+      Logger logger = getLogger();
+      if (!myDebug || logger == null) return;
+      if (e == null) {
+        logger.debug(message);
       }
-      catch (NullPointerException e) {
-        // npe may be thrown from here:
-        //at org.apache.maven.project.interpolation.StringSearchModelInterpolator$InterpolateObjectAction.isQualifiedForInterpolation(StringSearchModelInterpolator.java:344)
-        //at org.apache.maven.project.interpolation.StringSearchModelInterpolator$InterpolateObjectAction.traverseObjectWithParents(StringSearchModelInterpolator.java:172)
-        //at org.apache.maven.project.interpolation.StringSearchModelInterpolator$InterpolateObjectAction.traverseObjectWithParents(StringSearchModelInterpolator.java:328)
-        //at org.apache.maven.project.interpolation.StringSearchModelInterpolator$InterpolateObjectAction.run(StringSearchModelInterpolator.java:135)
-        //at org.apache.maven.project.interpolation.StringSearchModelInterpolator$InterpolateObjectAction.run(StringSearchModelInterpolator.java:102)
-        throw new ModelInterpolationException("Cannot interpolate", e);
+      else {
+        logger.debug(message, e);
       }
     }
   }
-}
\ No newline at end of file
+}
@@ -5,26 +5,44 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.manager.DefaultWagonManager;
 import org.apache.maven.artifact.metadata.ArtifactMetadata;
 import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.metadata.RepositoryMetadata;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.WagonException;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
+import java.util.Date;
 import java.util.Map;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class CustomWagonManager extends DefaultWagonManager {
+  /**
+   * Number of seconds a repository metadata that was not found remotely is not requested again.
+   */
+  public static final String METADATA_NOT_FOUND_TTL_PROPERTY = "idea.maven2.metadata.not.found.ttl";
+
   private UnresolvedArtifactsCollector myUnresolvedCollector;
 
   private final ThreadLocal<Boolean> myInBatchResolve = new ThreadLocal<Boolean>();
-  private final Map<String, Boolean> myResolutionCache = new HashMap<String, Boolean>();
+  /**
+   * Whether a transfer from one of the repositories failed during the current batch resolve of the thread.
+   */
+  private final ThreadLocal<Boolean> myTransferFailed = new ThreadLocal<Boolean>();
+  private final Map<String, Boolean> myResolutionCache = new ConcurrentHashMap<String, Boolean>();
+
+  private volatile PersistentResolutionCache myPersistentCache;
 
-  private final ReentrantReadWriteLock myCacheLock = new ReentrantReadWriteLock();
-  private final Lock myCacheReadLock = myCacheLock.readLock();
-  private final Lock myCacheWriteLock = myCacheLock.writeLock();
+  private final Map<String, MetadataCacheEntry> myMetadataCache = new ConcurrentHashMap<String, MetadataCacheEntry>();
+  private final long myMetadataNotFoundTtl = TimeUnit.SECONDS.toMillis(Long.getLong(METADATA_NOT_FOUND_TTL_PROPERTY, 30 * 60));
+  private final AtomicLong myMetadataCacheHits = new AtomicLong();
+  private final AtomicLong myMetadataCacheMisses = new AtomicLong();
+  private volatile int myBatch;
 
   public void customize(boolean failOnUnresolved) {
     myUnresolvedCollector = new UnresolvedArtifactsCollector(failOnUnresolved);
@@ -33,21 +51,47 @@ public final class CustomWagonManager extends DefaultWagonManager {
   public void reset() {
     // todo todo clear cache too??
     myUnresolvedCollector = null;
+    myBatch++;
+
+    PersistentResolutionCache persistentCache = myPersistentCache;
+    if (persistentCache != null) persistentCache.save();
+  }
+
+  void setPersistentCache(@Nullable PersistentResolutionCache persistentCache) {
+    myPersistentCache = persistentCache;
   }
 
   public UnresolvedArtifactsCollector getUnresolvedCollector() {
     return myUnresolvedCollector;
   }
 
+  public long getMetadataCacheHits() {
+    return myMetadataCacheHits.get();
+  }
+
+  public long getMetadataCacheMisses() {
+    return myMetadataCacheMisses.get();
+  }
+
   @Override
   public void getArtifact(Artifact artifact, List remoteRepositories) throws TransferFailedException, ResourceDoesNotExistException {
     myInBatchResolve.set(Boolean.TRUE);
+    myTransferFailed.set(Boolean.FALSE);
     try {
       if (!takeFromCache(artifact)) {
-        try {
-          super.getArtifact(artifact, remoteRepositories);
-        }
-        catch (WagonException ignore) {
+        String persistentKey = getPersistentKey(artifact, remoteRepositories);
+        if (!takeFromPersistentCache(artifact, persistentKey, remoteRepositories)) {
+          boolean notFound = false;
+          try {
+            super.getArtifact(artifact, remoteRepositories);
+          }
+          catch (ResourceDoesNotExistException e) {
+            // failed transfers are reported by the super method as missing resources too
+            notFound = myTransferFailed.get() != Boolean.TRUE;
+          }
+          catch (WagonException ignore) {
+          }
+          cachePersistent(artifact, persistentKey, notFound);
         }
         cache(artifact);
         myUnresolvedCollector.collectAndSetResolved(artifact);
@@ -55,6 +99,7 @@ public final class CustomWagonManager extends DefaultWagonManager {
     }
     finally {
       myInBatchResolve.set(Boolean.FALSE);
+      myTransferFailed.set(Boolean.FALSE);
     }
   }
 
@@ -62,15 +107,30 @@ public final class CustomWagonManager extends DefaultWagonManager {
   public void getArtifact(Artifact artifact, ArtifactRepository repository) throws TransferFailedException, ResourceDoesNotExistException {
     try {
       if (myInBatchResolve.get() == Boolean.TRUE) {
-        super.getArtifact(artifact, repository);
+        try {
+          super.getArtifact(artifact, repository);
+        }
+        catch (TransferFailedException e) {
+          myTransferFailed.set(Boolean.TRUE);
+          throw e;
+        }
         return;
       }
 
       if (!takeFromCache(artifact)) {
-        try {
-          super.getArtifact(artifact, repository);
-        }
-        catch (WagonException ignore) {
+        List<ArtifactRepository> repositories = Collections.singletonList(repository);
+        String persistentKey = getPersistentKey(artifact, repositories);
+        if (!takeFromPersistentCache(artifact, persistentKey, repositories)) {
+          boolean notFound = false;
+          try {
+            super.getArtifact(artifact, repository);
+          }
+          catch (ResourceDoesNotExistException e) {
+            notFound = true;
+          }
+          catch (WagonException ignore) {
+          }
+          cachePersistent(artifact, persistentKey, notFound);
         }
         cache(artifact);
         myUnresolvedCollector.collectAndSetResolved(artifact);
@@ -87,8 +147,7 @@ public final class CustomWagonManager extends DefaultWagonManager {
   @Override
   public void getArtifactMetadata(ArtifactMetadata metadata, ArtifactRepository repository, File destination, String checksumPolicy)
     throws TransferFailedException, ResourceDoesNotExistException {
-    // todo use cache here
-    super.getArtifactMetadata(metadata, repository, destination, checksumPolicy);
+    getMetadata(metadata, repository, destination, checksumPolicy, false);
   }
 
   @Override
@@ -97,33 +156,67 @@ public final class CustomWagonManager extends DefaultWagonManager {
                                                           File destination,
                                                           String checksumPolicy) throws TransferFailedException,
                                                                                         ResourceDoesNotExistException {
-    // todo use cache here
-    super.getArtifactMetadataFromDeploymentRepository(metadata, repository, destination, checksumPolicy);
+    getMetadata(metadata, repository, destination, checksumPolicy, true);
   }
 
-  private boolean takeFromCache(Artifact artifact) {
-    String key = getKey(artifact);
+  private void getMetadata(ArtifactMetadata metadata,
+                           ArtifactRepository repository,
+                           File destination,
+                           String checksumPolicy,
+                           boolean fromDeploymentRepository) throws TransferFailedException, ResourceDoesNotExistException {
+    String key = repository.getId() + ":" + repository.getUrl() + ":" + metadata.getKey() + ":" + fromDeploymentRepository;
+    MetadataCacheEntry entry = myMetadataCache.computeIfAbsent(key, k -> new MetadataCacheEntry());
 
-    Boolean wasResolved;
-    myCacheReadLock.lock();
-    try {
-      wasResolved = myResolutionCache.get(key);
-      if (wasResolved == null) return false;
-    }
-    finally {
-      myCacheReadLock.unlock();
-    }
+    // the entry also guards the destination file from concurrent downloads of the same metadata
+    synchronized (entry) {
+      if (entry.isUpToDate(destination, getUpdatePolicy(metadata, repository), myBatch, myMetadataNotFoundTtl)) {
+        myMetadataCacheHits.incrementAndGet();
+        if (!entry.myFound) {
+          throw new ResourceDoesNotExistException(metadata + " was not found in " + repository.getId() + " (cached)");
+        }
+        return;
+      }
+      myMetadataCacheMisses.incrementAndGet();
 
-    boolean fileWasDeleted = wasResolved && !artifact.getFile().exists();
-    if (fileWasDeleted) {
-      myCacheWriteLock.lock();
       try {
-        myResolutionCache.remove(key);
+        if (fromDeploymentRepository) {
+          super.getArtifactMetadataFromDeploymentRepository(metadata, repository, destination, checksumPolicy);
+        }
+        else {
+          super.getArtifactMetadata(metadata, repository, destination, checksumPolicy);
+        }
+        entry.update(destination, true, myBatch);
+      }
+      catch (ResourceDoesNotExistException e) {
+        entry.update(destination, false, myBatch);
+        throw e;
       }
-      finally {
-        myCacheWriteLock.unlock();
+      catch (TransferFailedException e) {
+        entry.invalidate();
+        throw e;
+      }
+      catch (RuntimeException e) {
+        entry.invalidate();
+        throw e;
       }
-      return false; // need to resolve again
+    }
+  }
+
+  private static ArtifactRepositoryPolicy getUpdatePolicy(ArtifactMetadata metadata, ArtifactRepository repository) {
+    boolean snapshot = metadata instanceof RepositoryMetadata && ((RepositoryMetadata)metadata).isSnapshot();
+    return snapshot ? repository.getSnapshots() : repository.getReleases();
+  }
+
+  private boolean takeFromCache(Artifact artifact) {
+    String key = getKey(artifact);
+
+    Boolean wasResolved = myResolutionCache.get(key);
+    if (wasResolved == null) return false;
+
+    if (wasResolved && !artifact.getFile().exists()) {
+      // the file was deleted, resolve again; a concurrent negative result stays in place
+      myResolutionCache.remove(key, Boolean.TRUE);
+      return false;
     }
 
     artifact.setResolved(wasResolved);
@@ -131,18 +224,35 @@ public final class CustomWagonManager extends DefaultWagonManager {
     return true;
   }
 
-  private void cache(Artifact artifact) {
-    String key = getKey(artifact);
+  private boolean takeFromPersistentCache(Artifact artifact, String persistentKey, List<?> repositories) {
+    PersistentResolutionCache persistentCache = myPersistentCache;
+    if (persistentCache == null || artifact.isSnapshot()) return false;
 
-    myCacheWriteLock.lock();
-    try {
-      myResolutionCache.put(key, artifact.isResolved());
+    if (!persistentCache.isNotFound(persistentKey, artifact.getFile(), repositories)) return false;
+
+    artifact.setResolved(false);
+    return true;
+  }
+
+  /**
+   * @param notFound whether all the repositories reported the artifact as missing, rather than failed or were offline
+   */
+  private void cachePersistent(Artifact artifact, String persistentKey, boolean notFound) {
+    PersistentResolutionCache persistentCache = myPersistentCache;
+    if (persistentCache == null || artifact.isSnapshot()) return;
+
+    if (notFound && !artifact.isResolved()) {
+      persistentCache.putNotFound(persistentKey);
     }
-    finally {
-      myCacheWriteLock.unlock();
+    else if (artifact.isResolved()) {
+      persistentCache.remove(persistentKey);
     }
   }
 
+  private void cache(Artifact artifact) {
+    myResolutionCache.put(getKey(artifact), artifact.isResolved());
+  }
+
   private String getKey(Artifact artifact) {
     return artifact.getGroupId()
            + ":" + artifact.getArtifactId()
@@ -150,4 +260,47 @@ public final class CustomWagonManager extends DefaultWagonManager {
            + ":" + artifact.getVersion()
            + ":" + artifact.getClassifier();
   }
+
+  private String getPersistentKey(Artifact artifact, List<?> repositories) {
+    StringBuilder result = new StringBuilder(getKey(artifact));
+    for (Object each : repositories) {
+      ArtifactRepository repository = (ArtifactRepository)each;
+      result.append('|').append(repository.getId()).append('=').append(repository.getUrl());
+    }
+    return result.toString();
+  }
+
+  private static final class MetadataCacheEntry {
+    private boolean myValid;
+    private boolean myFound;
+    private File myDestination;
+    private long myTimestamp;
+    private int myBatch;
+
+    private boolean isUpToDate(File destination, ArtifactRepositoryPolicy policy, int currentBatch, long notFoundTtl) {
+      if (!myValid || !destination.equals(myDestination)) return false;
+
+      if (myFound) {
+        if (!destination.exists()) return false;
+      }
+      else if (System.currentTimeMillis() - myTimestamp > notFoundTtl) {
+        return false;
+      }
+
+      // within one import the metadata is requested only once, whatever the update policy is
+      return myBatch == currentBatch || policy == null || !policy.checkOutOfDate(new Date(myTimestamp));
+    }
+
+    private void update(File destination, boolean found, int batch) {
+      myValid = true;
+      myFound = found;
+      myDestination = destination;
+      myTimestamp = System.currentTimeMillis();
+      myBatch = batch;
+    }
+
+    private void invalidate() {
+      myValid = false;
+    }
+  }
 }
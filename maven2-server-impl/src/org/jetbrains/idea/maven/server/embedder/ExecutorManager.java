@@ -2,22 +2,137 @@
 package org.jetbrains.idea.maven.server.embedder;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.lang.reflect.Method;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
 
 public final class ExecutorManager {
-  private static final ExecutorService myExecutor = new ThreadPoolExecutor(3, Integer.MAX_VALUE, 30 * 60L, TimeUnit.SECONDS,
-                                                                           new SynchronousQueue<Runnable>(),new ThreadFactory() {
+  /**
+   * Executor running embedder computations:
+   * {@code unbounded} (default) starts a thread for every concurrent computation,
+   * {@code bounded} runs them on {@link #THREADS_PROPERTY} threads, and in the submitting thread while {@link #QUEUE_PROPERTY}
+   * computations wait,
+   * {@code virtual} starts a virtual thread for every computation on JDK 21+ and falls back to {@code unbounded} otherwise.
+   */
+  public static final String MODE_PROPERTY = "idea.maven2.executor";
+  public static final String THREADS_PROPERTY = "idea.maven2.executor.threads";
+  public static final String QUEUE_PROPERTY = "idea.maven2.executor.queue";
+
+  private static final AtomicInteger ourQueued = new AtomicInteger();
+  private static final AtomicInteger ourActive = new AtomicInteger();
+  private static final AtomicLong ourCompleted = new AtomicLong();
+  private static final AtomicLong ourCallerRuns = new AtomicLong();
+  private static final AtomicLong ourWaitNanos = new AtomicLong();
+  private static final AtomicLong ourRunNanos = new AtomicLong();
+  private static final LongAccumulator ourMaxWaitNanos = new LongAccumulator(Math::max, 0);
+
+  private static final String myMode;
+  private static final ExecutorService myExecutor;
+
+  static {
+    String mode = System.getProperty(MODE_PROPERTY, "unbounded");
+    ExecutorService executor = null;
+    if ("bounded".equals(mode)) {
+      executor = createBoundedExecutor(Integer.getInteger(THREADS_PROPERTY, Math.max(4, Runtime.getRuntime().availableProcessors())),
+                                       Integer.getInteger(QUEUE_PROPERTY, 100));
+    }
+    else if ("virtual".equals(mode)) {
+      executor = createVirtualThreadExecutor();
+    }
+    if (executor == null) {
+      mode = "unbounded";
+      executor = new ThreadPoolExecutor(3, Integer.MAX_VALUE, 30 * 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                                        createThreadFactory());
+    }
+    myMode = mode;
+    myExecutor = executor;
+  }
+
+  @NotNull
+  public static <T> Future<T> execute(@NotNull Callable<T> r) {
+    final FutureTask<T> result = new FutureTask<T>(r);
+    final long submitted = System.nanoTime();
+    ourQueued.incrementAndGet();
+    try {
+      // the future is run by a wrapper, so that computations cancelled before start are accounted as well
+      myExecutor.execute(() -> {
+        long started = System.nanoTime();
+        ourQueued.decrementAndGet();
+        ourActive.incrementAndGet();
+        ourWaitNanos.addAndGet(started - submitted);
+        ourMaxWaitNanos.accumulate(started - submitted);
+        try {
+          result.run();
+        }
+        finally {
+          ourActive.decrementAndGet();
+          ourRunNanos.addAndGet(System.nanoTime() - started);
+          ourCompleted.incrementAndGet();
+        }
+      });
+    }
+    catch (RejectedExecutionException e) {
+      ourQueued.decrementAndGet();
+      throw e;
+    }
+    return result;
+  }
+
+  @NotNull
+  public static String getStatistics() {
+    long completed = ourCompleted.get();
+    return "executor (" + myMode + "): " +
+           ourQueued.get() + " queued, " + ourActive.get() + " active, " + completed + " completed, " +
+           ourCallerRuns.get() + " run by caller, " +
+           "wait " + average(ourWaitNanos.get(), completed) + " ms avg/" + TimeUnit.NANOSECONDS.toMillis(ourMaxWaitNanos.get()) + " ms max, " +
+           "run " + average(ourRunNanos.get(), completed) + " ms avg";
+  }
+
+  private static long average(long nanos, long count) {
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(nanos / count);
+  }
+
+  @NotNull
+  private static ExecutorService createBoundedExecutor(int threads, int queueSize) {
+    ThreadPoolExecutor result = new ThreadPoolExecutor(threads, threads, 30 * 60L, TimeUnit.SECONDS,
+                                                       new LinkedBlockingQueue<Runnable>(Math.max(1, queueSize)), createThreadFactory(),
+                                                       (r, executor) -> {
+                                                         if (executor.isShutdown()) {
+                                                           throw new RejectedExecutionException("Executor is shut down");
+                                                         }
+                                                         // back-pressure: the submitter runs the computation itself while the queue is full,
+                                                         // which also can't deadlock when workers submit computations and wait for them
+                                                         ourCallerRuns.incrementAndGet();
+                                                         r.run();
+                                                       });
+    result.allowCoreThreadTimeOut(true);
+    return result;
+  }
+
+  @Nullable
+  private static ExecutorService createVirtualThreadExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService)method.invoke(null);
+    }
+    catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  @NotNull
+  private static ThreadFactory createThreadFactory() {
+    return new ThreadFactory() {
       final AtomicInteger num = new AtomicInteger();
+
       @Override
       public Thread newThread(Runnable r) {
-        return new Thread(r, "Maven Embedder "+num.getAndIncrement());
+        return new Thread(r, "Maven Embedder " + num.getAndIncrement());
       }
-    });
-
-  @NotNull
-  public static <T> Future<T> execute(@NotNull Callable<T> r) {
-    return myExecutor.submit(r);
+    };
   }
 }
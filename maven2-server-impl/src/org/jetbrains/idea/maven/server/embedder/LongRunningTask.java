@@ -0,0 +1,135 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.idea.maven.server.embedder;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.idea.maven.server.LongRunningTaskStatus;
+import org.jetbrains.idea.maven.server.MavenServerProcessCanceledException;
+import org.jetbrains.idea.maven.server.MavenServerProgressIndicatorWrapper;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Progress of a request identified by its {@code longRunningTaskId}, reported to the IDE by the number of finished items.
+ * <p>
+ * Cancelling the task cancels its indicator, which stops downloads and resolution at the next check, and interrupts the threads
+ * running its computations or waiting for the container components. Downloads are counted by the task's own transfer listener.
+ */
+final class LongRunningTask {
+  private final String myId;
+  private final int myTotal;
+  private final AtomicInteger myFinished = new AtomicInteger();
+  private final AtomicInteger myDownloadedArtifacts = new AtomicInteger();
+  private final AtomicLong myTransferredBytes = new AtomicLong();
+  private final MavenServerProgressIndicatorWrapper myIndicator = new MavenServerProgressIndicatorWrapper();
+  private final TransferListenerAdapter myTransferListener;
+  private final Set<Future<?>> myFutures = Collections.newSetFromMap(new ConcurrentHashMap<Future<?>, Boolean>());
+  private volatile Thread myWaitingThread;
+  private volatile boolean myCanceled;
+
+  LongRunningTask(@NotNull String id, int total) {
+    myId = id;
+    myTotal = total;
+    myTransferListener = new TransferListenerAdapter(myIndicator, this);
+  }
+
+  @NotNull
+  String getId() {
+    return myId;
+  }
+
+  @NotNull
+  MavenServerProgressIndicatorWrapper getIndicator() {
+    return myIndicator;
+  }
+
+  /**
+   * @return the download monitor of the task, it checks the task's indicator and counts into the task only
+   */
+  @NotNull
+  TransferListenerAdapter getTransferListener() {
+    return myTransferListener;
+  }
+
+  /**
+   * Acquires the lock, giving up when the task is cancelled while waiting.
+   */
+  void lock(@NotNull Lock lock) throws MavenServerProcessCanceledException {
+    myWaitingThread = Thread.currentThread();
+    try {
+      if (myCanceled) throw new MavenServerProcessCanceledException();
+      lock.lockInterruptibly();
+    }
+    catch (InterruptedException e) {
+      throw new MavenServerProcessCanceledException();
+    }
+    finally {
+      myWaitingThread = null;
+    }
+  }
+
+  void itemFinished() {
+    myFinished.incrementAndGet();
+  }
+
+  @NotNull
+  LongRunningTaskStatus getStatus() {
+    return new LongRunningTaskStatus(myTotal, myFinished.get());
+  }
+
+  void artifactDownloaded() {
+    myDownloadedArtifacts.incrementAndGet();
+  }
+
+  void bytesTransferred(long count) {
+    myTransferredBytes.addAndGet(count);
+  }
+
+  int getDownloadedArtifacts() {
+    return myDownloadedArtifacts.get();
+  }
+
+  long getTransferredBytes() {
+    return myTransferredBytes.get();
+  }
+
+  /**
+   * Registers a computation of the task to be interrupted on cancellation.
+   */
+  @NotNull
+  <F extends Future<?>> F track(@NotNull F future) {
+    myFutures.add(future);
+    if (myCanceled) future.cancel(true);
+    return future;
+  }
+
+  void untrack(@NotNull Future<?> future) {
+    myFutures.remove(future);
+  }
+
+  boolean isCanceled() {
+    return myCanceled;
+  }
+
+  void cancel() {
+    myCanceled = true;
+    myIndicator.cancel();
+    Thread waiting = myWaitingThread;
+    if (waiting != null) waiting.interrupt();
+    for (Future<?> each : myFutures) {
+      each.cancel(true);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Task " + myId + ": " + myFinished.get() + "/" + myTotal + " finished, " +
+           myDownloadedArtifacts.get() + " artifacts downloaded, " + myTransferredBytes.get() + " bytes transferred" +
+           (myCanceled ? ", canceled" : "");
+  }
+}
@@ -11,16 +11,39 @@ import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.jdom.Element;
 import org.jdom.IllegalNameException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.idea.maven.model.*;
 import org.jetbrains.idea.maven.server.Maven2ServerGlobals;
 import org.sonatype.nexus.index.ArtifactInfo;
 
 import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.rmi.RemoteException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public final class Maven2ModelConverter {
+  /**
+   * Comma-separated {@code groupId:artifactId} keys of plugins whose configuration is not converted, e.g. plugins the IDE does not import.
+   */
+  public static final String SKIPPED_CONFIGURATION_PLUGINS_PROPERTY = "idea.maven2.skipped.configuration.plugins";
+
+  private static final Set<String> ourSkippedConfigurationPlugins = new HashSet<String>();
+
+  static {
+    for (String each : System.getProperty(SKIPPED_CONFIGURATION_PLUGINS_PROPERTY, "").split(",")) {
+      if (!each.trim().isEmpty()) ourSkippedConfigurationPlugins.add(each.trim());
+    }
+  }
+
+  private static final AtomicLong ourConfigurationHits = new AtomicLong();
+  private static final AtomicLong ourConfigurationMisses = new AtomicLong();
+
   @NotNull
   public static MavenModel convertModel(Model model, File localRepository) throws RemoteException {
     Build build = model.getBuild();
@@ -45,6 +68,29 @@ public final class Maven2ModelConverter {
                                         Collection<? extends DependencyNode> dependencyTree,
                                         Collection<? extends Artifact> extensions,
                                         File localRepository) throws RemoteException {
+    return convertModel(model, sources, testSources, dependencies, dependencyTree, extensions, localRepository, null, null);
+  }
+
+  /**
+   * Same as {@link #convertModel(Model, List, List, Collection, Collection, Collection, File)}, but equal artifacts of all models
+   * converted with the same {@code sharedArtifacts} map are represented by a single {@link MavenArtifact} instance, which is also
+   * serialized once when the models are sent together. Plugin configurations equal to ones in {@code convertedConfigurations} are
+   * shared instead of being converted again.
+   *
+   * @param sharedArtifacts         thread-safe map filled by this method, or {@code null} to share artifacts within the model only
+   * @param convertedConfigurations configurations converted for the other models, filled by this method, or {@code null} to convert
+   *                                every configuration
+   */
+  @NotNull
+  public static MavenModel convertModel(Model model,
+                                        List<String> sources,
+                                        List<String> testSources,
+                                        Collection<? extends Artifact> dependencies,
+                                        Collection<? extends DependencyNode> dependencyTree,
+                                        Collection<? extends Artifact> extensions,
+                                        File localRepository,
+                                        @Nullable Map<String, MavenArtifact> sharedArtifacts,
+                                        @Nullable ConfigurationCache convertedConfigurations) throws RemoteException {
     MavenModel result = new MavenModel();
     result.setMavenId(new MavenId(model.getGroupId(), model.getArtifactId(), model.getVersion()));
 
@@ -56,12 +102,12 @@ public final class Maven2ModelConverter {
     result.setPackaging(model.getPackaging());
     result.setName(model.getName());
     result.setProperties(model.getProperties() == null ? new Properties() : model.getProperties());
-    result.setPlugins(convertPlugins(model));
+    result.setPlugins(convertPlugins(model, convertedConfigurations));
 
     Map<Artifact, MavenArtifact> convertedArtifacts = new HashMap<Artifact, MavenArtifact>();
-    result.setExtensions(convertArtifacts(extensions, convertedArtifacts, localRepository));
-    result.setDependencies(convertArtifacts(dependencies, convertedArtifacts, localRepository));
-    result.setDependencyTree(convertDependencyNodes(null, dependencyTree, convertedArtifacts, localRepository));
+    result.setExtensions(convertArtifacts(extensions, convertedArtifacts, sharedArtifacts, localRepository));
+    result.setDependencies(convertArtifacts(dependencies, convertedArtifacts, sharedArtifacts, localRepository));
+    result.setDependencyTree(convertDependencyNodes(null, dependencyTree, convertedArtifacts, sharedArtifacts, localRepository));
 
     result.setRemoteRepositories(convertRepositories(model.getRepositories()));
     result.setProfiles(convertProfiles(model.getProfiles()));
@@ -134,11 +180,18 @@ public final class Maven2ModelConverter {
   public static List<MavenArtifact> convertArtifacts(Collection<? extends Artifact> artifacts,
                                                      Map<Artifact, MavenArtifact> nativeToConvertedMap,
                                                      File localRepository) {
+    return convertArtifacts(artifacts, nativeToConvertedMap, null, localRepository);
+  }
+
+  private static List<MavenArtifact> convertArtifacts(Collection<? extends Artifact> artifacts,
+                                                      Map<Artifact, MavenArtifact> nativeToConvertedMap,
+                                                      @Nullable Map<String, MavenArtifact> sharedArtifacts,
+                                                      File localRepository) {
     if (artifacts == null) return new ArrayList<MavenArtifact>();
 
     List<MavenArtifact> result = new ArrayList<MavenArtifact>(artifacts.size());
     for (Artifact each : artifacts) {
-      result.add(convertArtifact(each, nativeToConvertedMap, localRepository));
+      result.add(convertArtifact(each, nativeToConvertedMap, sharedArtifacts, localRepository));
     }
     return result;
   }
@@ -147,10 +200,18 @@ public final class Maven2ModelConverter {
                                                                Collection<? extends DependencyNode> nodes,
                                                                Map<Artifact, MavenArtifact> nativeToConvertedMap,
                                                                File localRepository) {
+    return convertDependencyNodes(parent, nodes, nativeToConvertedMap, null, localRepository);
+  }
+
+  private static List<MavenArtifactNode> convertDependencyNodes(MavenArtifactNode parent,
+                                                                Collection<? extends DependencyNode> nodes,
+                                                                Map<Artifact, MavenArtifact> nativeToConvertedMap,
+                                                                @Nullable Map<String, MavenArtifact> sharedArtifacts,
+                                                                File localRepository) {
     List<MavenArtifactNode> result = new ArrayList<MavenArtifactNode>(nodes.size());
     for (DependencyNode each : nodes) {
       Artifact a = each.getArtifact();
-      MavenArtifact ma = convertArtifact(a, nativeToConvertedMap, localRepository);
+      MavenArtifact ma = convertArtifact(a, nativeToConvertedMap, sharedArtifacts, localRepository);
 
       MavenArtifactState state = MavenArtifactState.ADDED;
       switch (each.getState()) {
@@ -170,19 +231,35 @@ public final class Maven2ModelConverter {
       }
       MavenArtifact relatedMA = each.getRelatedArtifact() == null ? null
                                                                   : convertArtifact(each.getRelatedArtifact(), nativeToConvertedMap,
-                                                                                    localRepository);
+                                                                                    sharedArtifacts, localRepository);
       MavenArtifactNode newNode = new MavenArtifactNode(parent, ma, state, relatedMA, each.getOriginalScope(),
                                                         each.getPremanagedVersion(), each.getPremanagedScope());
-      newNode.setDependencies(convertDependencyNodes(newNode, each.getChildren(), nativeToConvertedMap, localRepository));
+      newNode.setDependencies(convertDependencyNodes(newNode, each.getChildren(), nativeToConvertedMap, sharedArtifacts, localRepository));
       result.add(newNode);
     }
     return result;
   }
 
-  private static MavenArtifact convertArtifact(Artifact artifact, Map<Artifact, MavenArtifact> nativeToConvertedMap, File localRepository) {
+  private static MavenArtifact convertArtifact(Artifact artifact,
+                                               Map<Artifact, MavenArtifact> nativeToConvertedMap,
+                                               @Nullable Map<String, MavenArtifact> sharedArtifacts,
+                                               File localRepository) {
     MavenArtifact result = nativeToConvertedMap.get(artifact);
     if (result == null) {
-      result = convertArtifact(artifact, localRepository);
+      if (sharedArtifacts == null) {
+        result = convertArtifact(artifact, localRepository);
+      }
+      else {
+        // Artifact.equals ignores scope, file and state, so the key lists everything that is converted
+        String key = artifact.getId() + ":" + artifact.getBaseVersion() + ":" + artifact.getScope() + ":" + artifact.isOptional() +
+                     ":" + convertExtension(artifact) + ":" + artifact.getFile() + ":" + artifact.isResolved() +
+                     ":" + (artifact instanceof CustomArtifact && ((CustomArtifact)artifact).isStub());
+        result = sharedArtifacts.get(key);
+        if (result == null) {
+          result = convertArtifact(artifact, localRepository);
+          sharedArtifacts.put(key, result);
+        }
+      }
       nativeToConvertedMap.put(artifact, result);
     }
     return result;
@@ -216,19 +293,21 @@ public final class Maven2ModelConverter {
     return result;
   }
 
-  private static List<MavenPlugin> convertPlugins(Model mavenModel) throws RemoteException {
+  private static List<MavenPlugin> convertPlugins(Model mavenModel, @Nullable ConfigurationCache convertedConfigurations)
+    throws RemoteException {
     List<MavenPlugin> result = new ArrayList<MavenPlugin>();
     Set<String> pluginKeys = new HashSet<String>();
     Build build = mavenModel.getBuild();
-    doConvertPlugins(build, false, result, pluginKeys);
-    if (build != null) doConvertPlugins(build.getPluginManagement(), true, result, pluginKeys);
+    doConvertPlugins(build, false, result, pluginKeys, convertedConfigurations);
+    if (build != null) doConvertPlugins(build.getPluginManagement(), true, result, pluginKeys, convertedConfigurations);
     return result;
   }
 
   private static void doConvertPlugins(PluginContainer container,
                                        boolean management,
                                        List<MavenPlugin> result,
-                                       Set<String> pluginKeys) throws RemoteException {
+                                       Set<String> pluginKeys,
+                                       @Nullable ConfigurationCache convertedConfigurations) throws RemoteException {
     if (container == null) return;
 
     List<Plugin> plugins = container.getPlugins();
@@ -236,15 +315,18 @@ public final class Maven2ModelConverter {
 
     for (Plugin each : plugins) {
       String key = each.getGroupId() + ":" + each.getArtifactId();
-      result.add(convertPlugin(management, each));
+      result.add(convertPlugin(management, each, convertedConfigurations));
       pluginKeys.add(key);
     }
   }
 
-  private static MavenPlugin convertPlugin(boolean isDefault, Plugin plugin) throws RemoteException {
+  private static MavenPlugin convertPlugin(boolean isDefault, Plugin plugin, @Nullable ConfigurationCache convertedConfigurations)
+    throws RemoteException {
+    boolean skipConfiguration = ourSkippedConfigurationPlugins.contains(plugin.getGroupId() + ":" + plugin.getArtifactId());
+
     List<MavenPlugin.Execution> executions = new ArrayList<MavenPlugin.Execution>(plugin.getExecutions().size());
     for (PluginExecution each : plugin.getExecutions()) {
-      executions.add(convertExecution(each));
+      executions.add(convertExecution(each, skipConfiguration, convertedConfigurations));
     }
 
     List<MavenId> deps = new ArrayList<MavenId>(plugin.getDependencies().size());
@@ -257,16 +339,50 @@ public final class Maven2ModelConverter {
                            plugin.getVersion(),
                            isDefault,
                            plugin.isExtensions(),
-                           convertConfiguration(plugin.getConfiguration()),
+                           skipConfiguration ? null : convertConfiguration(plugin.getConfiguration(), convertedConfigurations),
                            executions, deps);
   }
 
   public static MavenPlugin.Execution convertExecution(PluginExecution execution) throws RemoteException {
-    return new MavenPlugin.Execution(execution.getId(), execution.getPhase(), execution.getGoals(), convertConfiguration(execution.getConfiguration()));
+    return convertExecution(execution, false, null);
+  }
+
+  private static MavenPlugin.Execution convertExecution(PluginExecution execution,
+                                                        boolean skipConfiguration,
+                                                        @Nullable ConfigurationCache convertedConfigurations) throws RemoteException {
+    Element configuration = skipConfiguration ? null : convertConfiguration(execution.getConfiguration(), convertedConfigurations);
+    return new MavenPlugin.Execution(execution.getId(), execution.getPhase(), execution.getGoals(), configuration);
+  }
+
+  /**
+   * Inherited configurations are equal in many projects of a call, so one converted element is shared by all of them. JDOM elements
+   * are mutable and have one parent, but the converted ones are detached roots that nothing in the server modifies or attaches, and
+   * the IDE only reads plugin configurations; RMI then sends a shared element once per response.
+   */
+  private static Element convertConfiguration(Object config, @Nullable ConfigurationCache convertedConfigurations)
+    throws RemoteException {
+    if (config == null) return null;
+
+    Xpp3Dom xpp = (Xpp3Dom)config;
+    if (convertedConfigurations == null) return xppToElement(xpp);
+
+    Element converted = convertedConfigurations.get(xpp);
+    if (converted != null) {
+      ourConfigurationHits.incrementAndGet();
+      return converted;
+    }
+    ourConfigurationMisses.incrementAndGet();
+    converted = xppToElement(xpp);
+    if (converted != null) convertedConfigurations.put(xpp, converted);
+    return converted;
   }
 
-  private static Element convertConfiguration(Object config) throws RemoteException {
-    return config == null ? null : xppToElement((Xpp3Dom)config);
+  public static long getConfigurationCacheHits() {
+    return ourConfigurationHits.get();
+  }
+
+  public static long getConfigurationCacheMisses() {
+    return ourConfigurationMisses.get();
   }
 
   private static Element xppToElement(Xpp3Dom xpp) throws RemoteException {
@@ -333,14 +449,9 @@ public final class Maven2ModelConverter {
   }
 
   public static Map<String, String> convertToMap(Object object) {
-    try {
-      Map<String, String> result = new HashMap<String, String>();
-      doConvert(object, "", result);
-      return result;
-    }
-    catch (IllegalAccessException e) {
-      throw new RuntimeException(e);
-    }
+    Map<String, String> result = new HashMap<String, String>();
+    ConversionPlan.forClass(object.getClass()).convert(object, result);
+    return result;
   }
 
   private static boolean isNativeToString(String toStringResult, Object o) {
@@ -348,30 +459,6 @@ public final class Maven2ModelConverter {
     return (toStringResult.startsWith(className) && toStringResult.startsWith("@", className.length()));
   }
 
-  private static void doConvert(Object object, String prefix, Map<String, String> result) throws IllegalAccessException {
-    for (Field each : ReflectionUtilRt.collectFields(object.getClass())) {
-      Class<?> type = each.getType();
-      if (shouldSkip(type)) continue;
-
-      each.setAccessible(true);
-      Object value = each.get(object);
-
-      if (value != null) {
-        String name = prefix + each.getName();
-
-        String sValue = String.valueOf(value);
-        if (!isNativeToString(sValue, value)) {
-          result.put(name, sValue);
-        }
-
-        Package pack = type.getPackage();
-        if (pack != null && Model.class.getPackage().getName().equals(pack.getName())) {
-          doConvert(value, name + ".", result);
-        }
-      }
-    }
-  }
-
   public static boolean shouldSkip(Class clazz) {
     return clazz.isArray()
            || Collection.class.isAssignableFrom(clazz)
@@ -530,5 +617,106 @@ public final class Maven2ModelConverter {
   public static MavenArtifactInfo convertArtifactInfo(ArtifactInfo a) {
     return new MavenArtifactInfo(a.groupId, a.artifactId, a.version, a.packaging, a.classifier, a.classNames, a.repository);
   }
-}
 
+  /**
+   * Fields read by {@link #convertToMap} for objects of one class found at one property path: getters are resolved and property
+   * names are concatenated once, and plans of nested objects are created on first use.
+   */
+  private static final class ConversionPlan {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<ConversionPlan> ourRootPlans = new ClassValue<ConversionPlan>() {
+      @Override
+      protected ConversionPlan computeValue(Class<?> type) {
+        return new ConversionPlan(type, "");
+      }
+    };
+
+    private static final ClassValue<Boolean> ourHasOwnToString = new ClassValue<Boolean>() {
+      @Override
+      protected Boolean computeValue(Class<?> type) {
+        try {
+          return type.getMethod("toString").getDeclaringClass() != Object.class;
+        }
+        catch (NoSuchMethodException e) {
+          return true;
+        }
+      }
+    };
+
+    private final Class<?> myClass;
+    private final String[] myNames;
+    private final MethodHandle[] myGetters;
+    private final boolean[] myNested;
+    private final AtomicReferenceArray<ConversionPlan> myNestedPlans;
+
+    private ConversionPlan(Class<?> type, String prefix) {
+      List<Field> fields = new ArrayList<Field>();
+      for (Field each : ReflectionUtilRt.collectFields(type)) {
+        if (!shouldSkip(each.getType())) fields.add(each);
+      }
+
+      myClass = type;
+      myNames = new String[fields.size()];
+      myGetters = new MethodHandle[fields.size()];
+      myNested = new boolean[fields.size()];
+      myNestedPlans = new AtomicReferenceArray<ConversionPlan>(fields.size());
+
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      for (int i = 0; i < fields.size(); i++) {
+        Field field = fields.get(i);
+        field.setAccessible(true);
+        try {
+          MethodHandle getter = lookup.unreflectGetter(field);
+          if (Modifier.isStatic(field.getModifiers())) getter = MethodHandles.dropArguments(getter, 0, Object.class);
+          myGetters[i] = getter.asType(GETTER_TYPE);
+        }
+        catch (IllegalAccessException e) {
+          throw new RuntimeException(e);
+        }
+        myNames[i] = prefix + field.getName();
+
+        Package pack = field.getType().getPackage();
+        myNested[i] = pack != null && Model.class.getPackage().getName().equals(pack.getName());
+      }
+    }
+
+    static ConversionPlan forClass(Class<?> type) {
+      return ourRootPlans.get(type);
+    }
+
+    void convert(Object object, Map<String, String> result) {
+      for (int i = 0; i < myGetters.length; i++) {
+        Object value;
+        try {
+          value = (Object)myGetters[i].invokeExact(object);
+        }
+        catch (Throwable e) {
+          throw new RuntimeException(e);
+        }
+        if (value == null) continue;
+
+        // Object.toString() results are never stored, so they are not computed either
+        if (ourHasOwnToString.get(value.getClass())) {
+          String sValue = String.valueOf(value);
+          if (!isNativeToString(sValue, value)) {
+            result.put(myNames[i], sValue);
+          }
+        }
+
+        if (myNested[i]) {
+          getNestedPlan(i, value.getClass()).convert(value, result);
+        }
+      }
+    }
+
+    private ConversionPlan getNestedPlan(int index, Class<?> type) {
+      ConversionPlan result = myNestedPlans.get(index);
+      if (result == null || result.myClass != type) {
+        result = new ConversionPlan(type, myNames[index] + ".");
+        myNestedPlans.set(index, result);
+      }
+      return result;
+    }
+  }
+}
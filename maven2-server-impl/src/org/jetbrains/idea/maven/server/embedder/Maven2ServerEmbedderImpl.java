@@ -12,9 +12,8 @@ import org.apache.maven.artifact.repository.metadata.RepositoryMetadataManager;
 import org.apache.maven.artifact.resolver.ArtifactNotFoundException;
 import org.apache.maven.artifact.resolver.ArtifactResolutionException;
 import org.apache.maven.artifact.resolver.ArtifactResolver;
-import org.apache.maven.model.Activation;
-import org.apache.maven.model.Model;
-import org.apache.maven.model.Profile;
+import org.apache.maven.model.*;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.profiles.activation.*;
 import org.apache.maven.project.*;
 import org.apache.maven.project.artifact.ProjectArtifactFactory;
@@ -26,12 +25,13 @@ import org.apache.maven.project.interpolation.ModelInterpolator;
 import org.apache.maven.project.path.DefaultPathTranslator;
 import org.apache.maven.project.path.PathTranslator;
 import org.apache.maven.project.validation.ModelValidationResult;
+import org.apache.maven.settings.Settings;
 import org.apache.maven.shared.dependency.tree.DependencyNode;
 import org.apache.maven.shared.dependency.tree.DependencyTreeResolutionListener;
 import org.codehaus.plexus.PlexusContainer;
-import org.codehaus.plexus.context.ContextException;
-import org.codehaus.plexus.context.DefaultContext;
 import org.codehaus.plexus.personality.plexus.lifecycle.phase.InitializationException;
+import org.codehaus.plexus.util.ReaderFactory;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.idea.maven.model.*;
@@ -40,29 +40,86 @@ import org.jetbrains.idea.maven.server.security.MavenToken;
 import org.jetbrains.maven.embedder.MavenEmbedder;
 import org.jetbrains.maven.embedder.MavenEmbedderSettings;
 import org.jetbrains.maven.embedder.MavenExecutionResult;
+import org.jetbrains.maven.embedder.MavenProjectCache;
 import org.jetbrains.maven.embedder.PlexusComponentConfigurator;
 
 import java.io.File;
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.InvocationTargetException;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.function.Consumer;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements MavenServerEmbedder {
+  /**
+   * Number of projects resolved concurrently by {@link #resolveProjects}, projects are resolved one by one if not set.
+   */
+  public static final String RESOLVE_THREADS_PROPERTY = "idea.maven2.resolve.threads";
+  /**
+   * Remembers artifacts missing in remote repositories between Maven server restarts, see {@link PersistentResolutionCache}.
+   */
+  public static final String PERSISTENT_RESOLUTION_CACHE_PROPERTY = "idea.maven2.persistent.resolution.cache";
+  /**
+   * Reuses results of {@link #resolveProjects} for POMs whose inputs did not change since the previous resolution,
+   * see {@link ProjectResolutionCache}.
+   */
+  public static final String INCREMENTAL_RESOLVE_PROPERTY = "idea.maven2.incremental.resolve";
+  /**
+   * Maximum number of results kept for {@link #INCREMENTAL_RESOLVE_PROPERTY}, 500 by default.
+   */
+  public static final String INCREMENTAL_RESOLVE_CACHE_SIZE_PROPERTY = "idea.maven2.incremental.resolve.cache.size";
+  /**
+   * Prints statistics of the embedder caches, the executor and finished long running tasks to the server log.
+   */
+  public static final String CACHE_STATISTICS_PROPERTY = "idea.maven2.cache.statistics";
+  /**
+   * Maximum number of interpolated models kept by {@link #interpolateAndAlignModel} and {@link #applyProfiles}, 1000 by default.
+   */
+  public static final String INTERPOLATION_CACHE_SIZE_PROPERTY = "idea.maven2.interpolation.cache.size";
+  /**
+   * Maximum number of native parent models kept by {@link #assembleInheritance}, 1000 by default.
+   */
+  public static final String NATIVE_MODEL_CACHE_SIZE_PROPERTY = "idea.maven2.native.model.cache.size";
+
+  private static final ModelInterpolationCache ourInterpolationCache =
+    new ModelInterpolationCache(Integer.getInteger(INTERPOLATION_CACHE_SIZE_PROPERTY, 1000));
+  private static final NativeModelCache ourNativeModelCache =
+    new NativeModelCache(Integer.getInteger(NATIVE_MODEL_CACHE_SIZE_PROPERTY, 1000));
+  private static ModelInterpolator ourModelInterpolator;
+
   private final MavenEmbedder myImpl;
   private final Maven2ServerConsoleWrapper myConsoleWrapper;
-  private volatile MavenServerProgressIndicator myCurrentIndicator;
-
-  private Maven2ServerEmbedderImpl(MavenEmbedder impl, Maven2ServerConsoleWrapper consoleWrapper) {
+  private final int myResolveThreads;
+  @Nullable private final ProjectResolutionCache myProjectResolutionCache;
+  private final Map<String, LongRunningTask> myLongRunningTasks = new ConcurrentHashMap<String, LongRunningTask>();
+  /**
+   * Built remote repositories by {@link #getRepositoryKey}; settings are fixed for an embedder, so the cache lives until {@link #release}.
+   */
+  private final ConcurrentMap<String, ArtifactRepository> myRepositories = new ConcurrentHashMap<String, ArtifactRepository>();
+  /**
+   * Held by the task that customized the container components; they and the download monitor are singletons in the container,
+   * so overlapping tasks would overwrite each other's indicator and collectors.
+   */
+  private final ReentrantLock myComponentsLock = new ReentrantLock(true);
+
+  private Maven2ServerEmbedderImpl(MavenEmbedder impl,
+                                   Maven2ServerConsoleWrapper consoleWrapper,
+                                   int resolveThreads,
+                                   @Nullable ProjectResolutionCache projectResolutionCache) {
     myImpl = impl;
     myConsoleWrapper = consoleWrapper;
+    myResolveThreads = resolveThreads;
+    myProjectResolutionCache = projectResolutionCache;
   }
 
   public static Maven2ServerEmbedderImpl create(MavenServerSettings facadeSettings) throws RemoteException {
@@ -97,7 +154,8 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
     settings.setGlobalSettingsPath(facadeSettings.getGlobalSettingsPath());
     settings.setLocalRepositoryPath(facadeSettings.getLocalRepositoryPath());
 
-    if (commandLineOptions.contains("-U") || commandLineOptions.contains("--update-snapshots")) {
+    boolean updateSnapshots = commandLineOptions.contains("-U") || commandLineOptions.contains("--update-snapshots");
+    if (updateSnapshots) {
       settings.setSnapshotUpdatePolicy(MavenEmbedderSettings.UpdatePolicy.ALWAYS_UPDATE);
       settings.setPluginUpdatePolicy(MavenEmbedderSettings.UpdatePolicy.ALWAYS_UPDATE);
 
@@ -108,7 +166,23 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
     }
     settings.setProperties(MavenServerUtil.collectSystemProperties());
 
-    return new Maven2ServerEmbedderImpl(MavenEmbedder.create(settings), consoleWrapper);
+    MavenEmbedder embedder = MavenEmbedder.create(settings);
+    if (Boolean.getBoolean(PERSISTENT_RESOLUTION_CACHE_PROPERTY) && !updateSnapshots) {
+      File cacheFile = new File(embedder.getLocalRepositoryFile(), PersistentResolutionCache.FILE_NAME);
+      ((CustomWagonManager)embedder.getComponent(WagonManager.class)).setPersistentCache(new PersistentResolutionCache(cacheFile));
+    }
+
+    ProjectResolutionCache projectResolutionCache = null;
+    if (Boolean.getBoolean(INCREMENTAL_RESOLVE_PROPERTY) && !updateSnapshots) {
+      List<File> settingsInputs = collectSettingsInputs(facadeSettings, embedder.getSettings());
+      if (settingsInputs != null) {
+        projectResolutionCache = new ProjectResolutionCache(embedder.getLocalRepository(), settingsInputs,
+                                                            Integer.getInteger(INCREMENTAL_RESOLVE_CACHE_SIZE_PROPERTY, 500));
+      }
+    }
+
+    int resolveThreads = Math.max(1, Integer.getInteger(RESOLVE_THREADS_PROPERTY, 1));
+    return new Maven2ServerEmbedderImpl(embedder, consoleWrapper, resolveThreads, projectResolutionCache);
   }
 
 
@@ -125,7 +199,7 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
   @NotNull
   public static MavenModel interpolateAndAlignModel(MavenModel model, File basedir) throws RemoteException {
     Model result = Maven2ModelConverter.toNativeModel(model);
-    result = doInterpolate(result, basedir);
+    result = doInterpolate(result, basedir, MavenServerUtil.collectSystemProperties());
 
     PathTranslator pathTranslator = new DefaultPathTranslator();
     pathTranslator.alignToBaseDirectory(result, basedir);
@@ -133,14 +207,20 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
     return Maven2ModelConverter.convertModel(result, null);
   }
 
-  private static Model doInterpolate(Model result, File basedir) throws RemoteException {
-    try {
-      AbstractStringBasedModelInterpolator interpolator = new CustomModelInterpolator(new DefaultPathTranslator());
-      interpolator.initialize();
+  /**
+   * @return the model interpolated in place, or an interpolated copy of it from {@link #ourInterpolationCache}
+   */
+  private static Model doInterpolate(Model result, File basedir, Properties props) throws RemoteException {
+    String key = ourInterpolationCache.getKey(result, basedir, props);
+    if (key != null) {
+      Model cached = ourInterpolationCache.get(key);
+      if (cached != null) return cached;
+    }
 
-      Properties props = MavenServerUtil.collectSystemProperties();
+    try {
       ProjectBuilderConfiguration config = new DefaultProjectBuilderConfiguration().setExecutionProperties(props);
-      result = interpolator.interpolate(result, basedir, config, false);
+      result = getModelInterpolator().interpolate(result, basedir, config, false);
+      if (key != null) ourInterpolationCache.put(key, result);
     }
     catch (ModelInterpolationException e) {
       Maven2ServerGlobals.getLogger().warn(e);
@@ -151,9 +231,28 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
     return result;
   }
 
+  private static synchronized ModelInterpolator getModelInterpolator() throws InitializationException {
+    if (ourModelInterpolator == null) {
+      AbstractStringBasedModelInterpolator interpolator = new CustomModelInterpolator(new DefaultPathTranslator());
+      interpolator.initialize();
+      ourModelInterpolator = interpolator;
+    }
+    return ourModelInterpolator;
+  }
+
+  /**
+   * Parents converted to native models are reused from {@link #ourNativeModelCache} by the children that share them.
+   */
   public static MavenModel assembleInheritance(MavenModel model, MavenModel parentModel) throws RemoteException {
+    String parentKey = NativeModelCache.getKey(parentModel);
+    Model nativeParent = ourNativeModelCache.get(parentKey);
+    if (nativeParent == null) {
+      nativeParent = Maven2ModelConverter.toNativeModel(parentModel);
+      ourNativeModelCache.put(parentKey, nativeParent);
+    }
+
     Model result = Maven2ModelConverter.toNativeModel(model);
-    new DefaultModelInheritanceAssembler().assembleModelInheritance(result, Maven2ModelConverter.toNativeModel(parentModel));
+    new DefaultModelInheritanceAssembler().assembleModelInheritance(result, nativeParent);
     return Maven2ModelConverter.convertModel(result, null);
   }
 
@@ -169,12 +268,20 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
     List<Profile> activatedExternal = new ArrayList<Profile>();
     List<Profile> activeByDefault = new ArrayList<Profile>();
 
+    // one snapshot of system properties is used for both interpolation and activation
+    Properties systemProperties = null;
+    if (hasActivation(nativeModel.getProfiles())) {
+      systemProperties = MavenServerUtil.collectSystemProperties();
+      // profiles are expanded in place, so the interpolated model is used from the start
+      nativeModel = doInterpolate(nativeModel, basedir, systemProperties);
+    }
+
     List<Profile> rawProfiles = nativeModel.getProfiles();
-    List<Profile> expandedProfilesCache = null;
     List<Profile> deactivatedProfiles = new ArrayList<Profile>();
+    ProfileActivators activators = null;
+    ProfileActivator fileActivator = null;
 
-    for (int i = 0; i < rawProfiles.size(); i++) {
-      Profile eachRawProfile = rawProfiles.get(i);
+    for (Profile eachRawProfile : rawProfiles) {
 
       if (disabledProfiles.contains(eachRawProfile.getId())) {
         deactivatedProfiles.add(eachRawProfile);
@@ -189,21 +296,11 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
           activeByDefault.add(eachRawProfile);
         }
 
-        // expand only if necessary
-        if (expandedProfilesCache == null) expandedProfilesCache = doInterpolate(nativeModel, basedir).getProfiles();
-        Profile eachExpandedProfile = expandedProfilesCache.get(i);
-
-        for (ProfileActivator eachActivator : getProfileActivators(basedir)) {
-          try {
-            if (eachActivator.canDetermineActivation(eachExpandedProfile) && eachActivator.isActive(eachExpandedProfile)) {
-              shouldAdd = true;
-              break;
-            }
-          }
-          catch (ProfileActivationException e) {
-            Maven2ServerGlobals.getLogger().warn(e);
-          }
+        if (activators == null) {
+          activators = ProfileActivators.getInstance(systemProperties);
+          fileActivator = new MyFileProfileActivator(basedir);
         }
+        if (activators.isActive(eachRawProfile, fileActivator)) shouldAdd = true;
       }
 
       if (shouldAdd) {
@@ -229,22 +326,11 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
     );
   }
 
-  private static ProfileActivator[] getProfileActivators(File basedir) throws RemoteException {
-    SystemPropertyProfileActivator sysPropertyActivator = new SystemPropertyProfileActivator();
-    DefaultContext context = new DefaultContext();
-    context.put("SystemProperties", MavenServerUtil.collectSystemProperties());
-    try {
-      sysPropertyActivator.contextualize(context);
-    }
-    catch (ContextException e) {
-      Maven2ServerGlobals.getLogger().error(e);
-      return new ProfileActivator[0];
+  private static boolean hasActivation(List<Profile> profiles) {
+    for (Profile each : profiles) {
+      if (each.getActivation() != null) return true;
     }
-
-    return new ProfileActivator[]{new MyFileProfileActivator(basedir),
-      sysPropertyActivator,
-      new JdkPrefixProfileActivator(),
-      new OperatingSystemProfileActivator()};
+    return false;
   }
 
   private static void setupContainer(PlexusContainer c) {
@@ -257,6 +343,37 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
   }
 
 
+  /**
+   * @return the settings files and the files of settings profile file activations,
+   * or null if an activation refers to a file by an expression and can't be tracked
+   */
+  @Nullable
+  private static List<File> collectSettingsInputs(@NotNull MavenServerSettings facadeSettings, @NotNull Settings settings) {
+    List<File> result = new ArrayList<File>();
+    String userSettingsPath = facadeSettings.getUserSettingsPath();
+    result.add(userSettingsPath != null ? new File(userSettingsPath)
+                                        : new File(System.getProperty("user.home"), ".m2/settings.xml"));
+    String globalSettingsPath = facadeSettings.getGlobalSettingsPath();
+    if (globalSettingsPath != null) {
+      result.add(new File(globalSettingsPath));
+    }
+    else if (facadeSettings.getMavenHomePath() != null) {
+      result.add(new File(facadeSettings.getMavenHomePath(), "conf/settings.xml"));
+    }
+
+    for (org.apache.maven.settings.Profile each : settings.getProfiles()) {
+      org.apache.maven.settings.Activation activation = each.getActivation();
+      org.apache.maven.settings.ActivationFile file = activation == null ? null : activation.getFile();
+      if (file == null) continue;
+      for (String path : new String[]{file.getExists(), file.getMissing()}) {
+        if (path == null) continue;
+        if (path.contains("${")) return null;
+        result.add(new File(path));
+      }
+    }
+    return result;
+  }
+
   @NotNull
   @Override
   public Collection<MavenServerExecutionResult> resolveProjects(@NotNull String longRunningTaskId,
@@ -267,40 +384,103 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
     @NotNull final Collection<String> activeProfiles = request.getActiveProfiles();
     @NotNull final Collection<String> inactiveProfiles = request.getInactiveProfiles();
 
+    final LongRunningTask task = startLongRunningTask(longRunningTaskId, files.size());
     try {
-
-      return files.stream().map(file -> {
-        try {
-          return doExecute(new Executor<MavenServerExecutionResult>() {
-            @NotNull
-            @Override
-            public MavenServerExecutionResult execute() throws Exception {
-              DependencyTreeResolutionListener listener = new DependencyTreeResolutionListener(myConsoleWrapper);
-              MavenExecutionResult result = myImpl.resolveProject(file,
-                      new ArrayList<String>(activeProfiles),
-                      new ArrayList<String>(inactiveProfiles),
-                      Collections.singletonList(listener));
-              return createExecutionResult(file, result, listener.getRootNode());
-            }
-          });
-        } catch (MavenServerProcessCanceledException | RemoteException e) {
-          throw new RuntimeException(e);
-        }
-      }).collect(Collectors.toList());
-    } finally {
+      customizeComponents(task);
+
+      final MavenEmbedder.ResolutionBatch batch = myImpl.createResolutionBatch(new ArrayList<String>(activeProfiles),
+                                                                               new ArrayList<String>(inactiveProfiles));
+      final Map<String, MavenArtifact> convertedArtifacts = new ConcurrentHashMap<String, MavenArtifact>();
+      final ConfigurationCache convertedConfigurations = new ConfigurationCache();
+      List<Executor<MavenServerExecutionResult>> executors = new ArrayList<Executor<MavenServerExecutionResult>>(files.size());
+      for (final File file : files) {
+        executors.add(new Executor<MavenServerExecutionResult>() {
+          @NotNull
+          @Override
+          public MavenServerExecutionResult execute() throws Exception {
+            MavenServerExecutionResult result =
+              resolveProject(file, batch, convertedArtifacts, convertedConfigurations, activeProfiles, inactiveProfiles);
+            task.itemFinished();
+            return result;
+          }
+        });
+      }
+      return doExecute(task, executors, myResolveThreads);
+    }
+    catch (MavenServerProcessCanceledException | RemoteException e) {
+      throw new RuntimeException(e);
+    }
+    finally {
+      finishLongRunningTask(task);
       resetComponents();
     }
   }
 
+  @NotNull
+  private MavenServerExecutionResult resolveProject(@NotNull File file,
+                                                    @NotNull MavenEmbedder.ResolutionBatch batch,
+                                                    @NotNull Map<String, MavenArtifact> convertedArtifacts,
+                                                    @NotNull ConfigurationCache convertedConfigurations,
+                                                    @NotNull Collection<String> activeProfiles,
+                                                    @NotNull Collection<String> inactiveProfiles) throws RemoteException {
+    if (myProjectResolutionCache != null) {
+      MavenServerExecutionResult cached = myProjectResolutionCache.get(file, activeProfiles, inactiveProfiles);
+      if (cached != null) return cached;
+    }
+
+    DependencyTreeResolutionListener listener = new DependencyTreeResolutionListener(myConsoleWrapper);
+    MavenExecutionResult result = myImpl.resolveProject(file, batch, Collections.singletonList(listener));
+    MavenServerExecutionResult executionResult =
+      createExecutionResult(file, result, listener.getRootNode(), convertedArtifacts, convertedConfigurations);
+
+    if (myProjectResolutionCache != null) {
+      myProjectResolutionCache.put(file, activeProfiles, inactiveProfiles, result.getMavenProject(), executionResult);
+    }
+    return executionResult;
+  }
+
+  @NotNull
+  private LongRunningTask startLongRunningTask(@NotNull String longRunningTaskId, int total) {
+    LongRunningTask task = new LongRunningTask(longRunningTaskId, total);
+    myLongRunningTasks.put(longRunningTaskId, task);
+    return task;
+  }
+
+  private void finishLongRunningTask(@NotNull LongRunningTask task) {
+    myLongRunningTasks.remove(task.getId(), task);
+    if (Boolean.getBoolean(CACHE_STATISTICS_PROPERTY)) {
+      try {
+        Maven2ServerGlobals.getLogger().print(task.toString());
+      }
+      catch (RemoteException ignore) {
+      }
+    }
+  }
+
   @NotNull
   private MavenServerExecutionResult createExecutionResult(File file, MavenExecutionResult result, DependencyNode rootNode)
     throws RemoteException {
+    return createExecutionResult(file, result, rootNode, null, null);
+  }
+
+  /**
+   * @param convertedArtifacts      artifacts shared with the other results of a batch
+   * @param convertedConfigurations plugin configurations converted for the other results of a batch
+   * @see Maven2ModelConverter#convertModel(Model, List, List, Collection, Collection, Collection, File, Map, ConfigurationCache)
+   */
+  @NotNull
+  private MavenServerExecutionResult createExecutionResult(File file,
+                                                           MavenExecutionResult result,
+                                                           DependencyNode rootNode,
+                                                           @Nullable Map<String, MavenArtifact> convertedArtifacts,
+                                                           @Nullable ConfigurationCache convertedConfigurations)
+    throws RemoteException {
     Collection<MavenProjectProblem> problems = MavenProjectProblem.createProblemsList();
-    Set<MavenId> unresolvedArtifacts = new HashSet<MavenId>();
+    MavenProject mavenProject = result.getMavenProject();
 
-    validate(file, result.getExceptions(), problems, unresolvedArtifacts);
+    validate(file, result.getExceptions(), problems);
+    Set<MavenId> unresolvedArtifacts = retrieveUnresolvedArtifactIds(file, mavenProject);
 
-    MavenProject mavenProject = result.getMavenProject();
     if (mavenProject == null) return new MavenServerExecutionResult(null, problems, unresolvedArtifacts);
 
     MavenModel model = Maven2ModelConverter.convertModel(mavenProject.getModel(),
@@ -309,7 +489,9 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
                                                          mavenProject.getArtifacts(),
                                                          (rootNode == null ? Collections.emptyList() : rootNode.getChildren()),
                                                          mavenProject.getExtensionArtifacts(),
-                                                         getLocalRepositoryFile());
+                                                         getLocalRepositoryFile(),
+                                                         convertedArtifacts,
+                                                         convertedConfigurations);
 
     RemoteNativeMavenProjectHolder holder = new RemoteNativeMavenProjectHolder(mavenProject);
     try {
@@ -353,22 +535,70 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
   @NotNull
   public List<MavenArtifact> resolveArtifacts(@NotNull String longRunningTaskId, @NotNull Collection<MavenArtifactResolutionRequest> requests, MavenToken token) throws RemoteException {
     MavenServerUtil.checkToken(token);
+    final LongRunningTask task = startLongRunningTask(longRunningTaskId, requests.size());
     try {
-      Set<Artifact> toResolve = new LinkedHashSet<Artifact>();
-      for (MavenArtifactInfo each : requests.stream().map(MavenArtifactResolutionRequest::getArtifactInfo).collect(Collectors.toList())) {
-        toResolve.add(createArtifact(each));
+      customizeComponents(task);
+
+      // every request is resolved on its own, so that an unresolvable artifact fails only its own request
+      Map<List<String>, List<ArtifactRepository>> convertedRepositories = new HashMap<List<String>, List<ArtifactRepository>>();
+      List<Executor<Set<Artifact>>> executors = new ArrayList<Executor<Set<Artifact>>>(requests.size());
+      for (MavenArtifactResolutionRequest each : requests) {
+        final Artifact artifact = createArtifact(each.getArtifactInfo());
+        final List<ArtifactRepository> repositories = convertRepositories(each.getRemoteRepositories(), convertedRepositories);
+        executors.add(new Executor<Set<Artifact>>() {
+          @NotNull
+          @Override
+          public Set<Artifact> execute() throws Exception {
+            Set<Artifact> result;
+            try {
+              result = myImpl.resolveTransitively(Collections.singleton(artifact), repositories);
+            }
+            catch (ArtifactResolutionException | ArtifactNotFoundException e) {
+              Maven2ServerGlobals.getLogger().info(e);
+              result = Collections.emptySet();
+            }
+            task.itemFinished();
+            return result;
+          }
+        });
       }
 
-      return Maven2ModelConverter.convertArtifacts(myImpl.resolveTransitively(toResolve, convertRepositories(requests.stream().flatMap(it -> it.getRemoteRepositories().stream()).collect(Collectors.toList()))),
-                                                   new HashMap<Artifact, MavenArtifact>(), getLocalRepositoryFile());
-    }
-    catch (ArtifactResolutionException | ArtifactNotFoundException e) {
-      Maven2ServerGlobals.getLogger().info(e);
+      Map<String, Artifact> resolved = new LinkedHashMap<String, Artifact>();
+      for (Set<Artifact> each : doExecute(task, executors, myResolveThreads)) {
+        for (Artifact artifact : each) {
+          if (!resolved.containsKey(artifact.getId())) resolved.put(artifact.getId(), artifact);
+        }
+      }
+      return Maven2ModelConverter.convertArtifacts(resolved.values(), new HashMap<Artifact, MavenArtifact>(), getLocalRepositoryFile());
     }
     catch (Exception e) {
       throw wrapToSerializableRuntimeException(e);
     }
-    return Collections.emptyList();
+    finally {
+      finishLongRunningTask(task);
+      resetComponents();
+    }
+  }
+
+  /**
+   * Converts the repositories skipping duplicates; lists with the same repositories are converted once per {@code converted} map.
+   */
+  @NotNull
+  private List<ArtifactRepository> convertRepositories(@NotNull List<MavenRemoteRepository> repositories,
+                                                       @NotNull Map<List<String>, List<ArtifactRepository>> converted) throws RemoteException {
+    Map<String, MavenRemoteRepository> unique = new LinkedHashMap<String, MavenRemoteRepository>();
+    for (MavenRemoteRepository each : repositories) {
+      String key = each.getId() + ":" + each.getUrl();
+      if (!unique.containsKey(key)) unique.put(key, each);
+    }
+
+    List<String> key = new ArrayList<String>(unique.keySet());
+    List<ArtifactRepository> result = converted.get(key);
+    if (result == null) {
+      result = convertRepositories(new ArrayList<MavenRemoteRepository>(unique.values()));
+      converted.put(key, result);
+    }
+    return result;
   }
 
 
@@ -426,18 +656,38 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
 
   private List<ArtifactRepository> convertRepositories(List<MavenRemoteRepository> repositories) throws RemoteException {
     List<ArtifactRepository> result = new ArrayList<ArtifactRepository>();
+    ArtifactRepositoryFactory factory = null;
     for (MavenRemoteRepository each : repositories) {
-      try {
-        ArtifactRepositoryFactory factory = getComponent(ArtifactRepositoryFactory.class);
-        result.add(ProjectUtils.buildArtifactRepository(Maven2ModelConverter.toNativeRepository(each), factory, getContainer()));
-      }
-      catch (InvalidRepositoryException e) {
-        Maven2ServerGlobals.getLogger().warn(e);
+      String key = getRepositoryKey(each);
+      ArtifactRepository repository = myRepositories.get(key);
+      if (repository == null) {
+        try {
+          if (factory == null) factory = getComponent(ArtifactRepositoryFactory.class);
+          repository = ProjectUtils.buildArtifactRepository(Maven2ModelConverter.toNativeRepository(each), factory, getContainer());
+        }
+        catch (InvalidRepositoryException e) {
+          Maven2ServerGlobals.getLogger().warn(e);
+          continue;
+        }
+        ArtifactRepository existing = myRepositories.putIfAbsent(key, repository);
+        if (existing != null) repository = existing;
       }
+      result.add(repository);
     }
     return result;
   }
 
+  @NotNull
+  private static String getRepositoryKey(@NotNull MavenRemoteRepository repository) {
+    return repository.getId() + "|" + repository.getUrl() + "|" + repository.getLayout() +
+           "|" + getPolicyKey(repository.getReleasesPolicy()) + "|" + getPolicyKey(repository.getSnapshotsPolicy());
+  }
+
+  @NotNull
+  private static String getPolicyKey(@Nullable MavenRemoteRepository.Policy policy) {
+    return policy == null ? "" : policy.isEnabled() + ":" + policy.getUpdatePolicy() + ":" + policy.getChecksumPolicy();
+  }
+
   @NotNull
   @Override
   public List<MavenGoalExecutionResult> executeGoal(
@@ -445,37 +695,47 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
           @NotNull Collection<MavenGoalExecutionRequest> requests,
           @NotNull String goal,
           MavenToken token) throws RemoteException {
-    return requests.stream().map(r -> {
-      try {
-        return doExecute(new Executor<MavenGoalExecutionResult>() {
+    MavenServerUtil.checkToken(token);
+    LongRunningTask task = startLongRunningTask(longRunningTaskId, requests.size());
+    try {
+      return requests.stream().map(r -> {
+        try {
+          MavenGoalExecutionResult goalResult = doExecute(task, new Executor<MavenGoalExecutionResult>() {
 
-          @Override
-          public @NotNull MavenGoalExecutionResult execute() throws Exception {
-            MavenExecutionResult result = myImpl
-                    .execute(r.file(), new ArrayList<String>(r.profiles().getEnabledProfiles()), new ArrayList<String>(r.profiles().getDisabledProfiles()), Collections.singletonList(goal), Collections.emptyList(), true,
-                            true);
+            @Override
+            public @NotNull MavenGoalExecutionResult execute() throws Exception {
+              MavenExecutionResult result = myImpl
+                      .execute(r.file(), new ArrayList<String>(r.profiles().getEnabledProfiles()), new ArrayList<String>(r.profiles().getDisabledProfiles()), Collections.singletonList(goal), Collections.emptyList(), true,
+                              true);
 
-            return new MavenGoalExecutionResult(!result.hasExceptions(), r.file(), new MavenGoalExecutionResult.Folders(),
-                    result.getExceptions().stream().map(e -> MavenProjectProblem.createStructureProblem(r.file().getPath(), e.getMessage())).collect(Collectors.toList()));
-          }
-        });
-      } catch (Throwable e) {
-        throw wrapToSerializableRuntimeException(e);
-      }
+              return new MavenGoalExecutionResult(!result.hasExceptions(), r.file(), new MavenGoalExecutionResult.Folders(),
+                      result.getExceptions().stream().map(e -> MavenProjectProblem.createStructureProblem(r.file().getPath(), e.getMessage())).collect(Collectors.toList()));
+            }
+          });
+          task.itemFinished();
+          return goalResult;
+        } catch (Throwable e) {
+          throw wrapToSerializableRuntimeException(e);
+        }
 
-    }).collect(Collectors.toList());
+      }).collect(Collectors.toList());
+    }
+    finally {
+      finishLongRunningTask(task);
+    }
   }
 
 
   @NotNull
-  private MavenServerExecutionResult execute(@NotNull final File file,
+  private MavenServerExecutionResult execute(@NotNull LongRunningTask task,
+                                            @NotNull final File file,
                                             @NotNull final Collection<String> activeProfiles,
                                             @NotNull final Collection<String> inactiveProfiles,
                                             @NotNull final List<String> goals,
                                             @NotNull final List<String> selectedProjects,
                                             final boolean alsoMake,
                                              final boolean alsoMakeDependents) throws RemoteException, MavenServerProcessCanceledException {
-    return doExecute(new Executor<MavenServerExecutionResult>() {
+    return doExecute(task, new Executor<MavenServerExecutionResult>() {
       @NotNull
       @Override
       public MavenServerExecutionResult execute() throws Exception {
@@ -489,8 +749,7 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
 
   private void validate(File file,
                         Collection<Exception> exceptions,
-                        Collection<MavenProjectProblem> problems,
-                        Collection<MavenId> unresolvedArtifacts) throws RemoteException {
+                        Collection<MavenProjectProblem> problems) throws RemoteException {
     for (Exception each : exceptions) {
       Maven2ServerGlobals.getLogger().info(each);
 
@@ -513,16 +772,120 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
         problems.add(MavenProjectProblem.createStructureProblem(file.getPath(), each.getMessage()));
       }
     }
-    unresolvedArtifacts.addAll(retrieveUnresolvedArtifactIds());
   }
 
-  private Set<MavenId> retrieveUnresolvedArtifactIds() {
+  private Set<MavenId> retrieveUnresolvedArtifactIds(@Nullable File file, @Nullable MavenProject project) {
+    Set<MavenId> result = new HashSet<MavenId>();
+    UnresolvedArtifactsCollector wagonCollector = ((CustomWagonManager)getComponent(WagonManager.class)).getUnresolvedCollector();
+    UnresolvedArtifactsCollector resolverCollector = ((CustomArtifactResolver)getComponent(ArtifactResolver.class)).getUnresolvedCollector();
+    if (myResolveThreads == 1) {
+      wagonCollector.retrieveUnresolvedIds(result);
+      resolverCollector.retrieveUnresolvedIds(result);
+    }
+    else {
+      // the collectors are shared by all the projects being resolved concurrently,
+      // so only the artifacts the project refers to are reported, and they are kept for the other projects.
+      // A project that failed to build is checked against the parents and plugins declared in its POM files.
+      Set<MavenId> referencedIds = project != null ? collectReferencedIds(project) : collectDeclaredIds(file);
+      wagonCollector.retrieveUnresolvedIds(result, referencedIds);
+      resolverCollector.retrieveUnresolvedIds(result, referencedIds);
+    }
+    return result;
+  }
+
+  private static Set<MavenId> collectReferencedIds(MavenProject project) {
+    Set<MavenId> result = new HashSet<MavenId>();
+    collectArtifactIds(project.getArtifacts(), result);
+    collectArtifactIds(project.getExtensionArtifacts(), result);
+    collectArtifactIds(project.getPluginArtifacts(), result);
+    collectArtifactIds(project.getReportArtifacts(), result);
+    collectPluginIds(project.getModel(), result);
+    for (MavenProject each = project; each != null; each = each.getParent()) {
+      if (each.getParentArtifact() != null) result.add(Maven2ModelConverter.createMavenId(each.getParentArtifact()));
+    }
+    return result;
+  }
+
+  private static void collectArtifactIds(@Nullable Collection<?> artifacts, Set<MavenId> result) {
+    if (artifacts == null) return;
+    for (Object each : artifacts) {
+      result.add(Maven2ModelConverter.createMavenId((Artifact)each));
+    }
+  }
+
+  private static void collectPluginIds(Model model, Set<MavenId> result) {
+    Build build = model.getBuild();
+    if (build != null) {
+      for (Plugin each : build.getPlugins()) {
+        result.add(new MavenId(each.getGroupId(), each.getArtifactId(), each.getVersion()));
+      }
+      for (Extension each : build.getExtensions()) {
+        result.add(new MavenId(each.getGroupId(), each.getArtifactId(), each.getVersion()));
+      }
+    }
+    Reporting reporting = model.getReporting();
+    if (reporting != null) {
+      for (ReportPlugin each : reporting.getPlugins()) {
+        result.add(new MavenId(each.getGroupId(), each.getArtifactId(), each.getVersion()));
+      }
+    }
+  }
+
+  /**
+   * Collects the parent chain and the plugins declared in the POM and in the parent POMs that can be found,
+   * either by their relative paths or in the local repository.
+   */
+  private Set<MavenId> collectDeclaredIds(@Nullable File file) {
     Set<MavenId> result = new HashSet<MavenId>();
-    ((CustomWagonManager)getComponent(WagonManager.class)).getUnresolvedCollector().retrieveUnresolvedIds(result);
-    ((CustomArtifactResolver)getComponent(ArtifactResolver.class)).getUnresolvedCollector().retrieveUnresolvedIds(result);
+    Set<File> visited = new HashSet<File>();
+    while (file != null && visited.add(file)) {
+      Model model = readRawModel(file);
+      if (model == null) break;
+      collectPluginIds(model, result);
+
+      Parent parent = model.getParent();
+      if (parent == null) break;
+      result.add(new MavenId(parent.getGroupId(), parent.getArtifactId(), parent.getVersion()));
+      file = findParentFile(file, parent);
+    }
     return result;
   }
 
+  @Nullable
+  private File findParentFile(@NotNull File file, @NotNull Parent parent) {
+    String relativePath = parent.getRelativePath();
+    if (relativePath != null && !relativePath.isEmpty()) {
+      File candidate = new File(file.getParentFile(), relativePath);
+      if (candidate.isDirectory()) candidate = new File(candidate, "pom.xml");
+      if (candidate.isFile()) {
+        Model candidateModel = readRawModel(candidate);
+        if (candidateModel != null && parent.getArtifactId().equals(candidateModel.getArtifactId())) return candidate;
+      }
+    }
+    File inRepository = getRepositoryPom(getLocalRepositoryFile(), parent);
+    return inRepository != null && inRepository.isFile() ? inRepository : null;
+  }
+
+  /**
+   * @return the POM file of the parent in the default layout of the repository
+   */
+  @Nullable
+  static File getRepositoryPom(@NotNull File repository, @NotNull Parent parent) {
+    if (parent.getGroupId() == null || parent.getArtifactId() == null || parent.getVersion() == null) return null;
+    return new File(repository, parent.getGroupId().replace('.', '/') + "/" + parent.getArtifactId() + "/" +
+                                parent.getVersion() + "/" + parent.getArtifactId() + "-" + parent.getVersion() + ".pom");
+  }
+
+  @Nullable
+  static Model readRawModel(@NotNull File file) {
+    try (Reader reader = ReaderFactory.newXmlReader(file)) {
+      return new MavenXpp3Reader().read(reader, false);
+    }
+    catch (IOException | XmlPullParserException e) {
+      return null;
+    }
+  }
+
   @NotNull
   public File getLocalRepositoryFile() {
     return myImpl.getLocalRepositoryFile();
@@ -541,31 +904,91 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
   }
 
   @NotNull
-  private <T> T doExecute(final Executor<T> executor) throws MavenServerProcessCanceledException, RemoteException {
-    Future<T> future = ExecutorManager.execute(() -> executor.execute());
+  private <T> T doExecute(@NotNull LongRunningTask task, final Executor<T> executor)
+    throws MavenServerProcessCanceledException, RemoteException {
+    Future<T> future = task.track(ExecutorManager.execute(() -> executor.execute()));
+    try {
+      return waitFor(task, future);
+    }
+    finally {
+      task.untrack(future);
+    }
+  }
+
+  /**
+   * Runs up to {@code threads} executors at a time, results are returned in the order of the executors.
+   */
+  @NotNull
+  private <T> List<T> doExecute(@NotNull LongRunningTask task, @NotNull List<? extends Executor<T>> executors, int threads)
+    throws MavenServerProcessCanceledException, RemoteException {
+    List<T> result = new ArrayList<T>(executors.size());
+    if (threads == 1 || executors.size() == 1) {
+      for (Executor<T> each : executors) {
+        result.add(doExecute(task, each));
+      }
+      return result;
+    }
 
-    MavenServerProgressIndicator indicator = myCurrentIndicator;
-    while (true) {
-      if (indicator.isCanceled()) throw new MavenServerProcessCanceledException();
+    List<FutureTask<T>> futures = new ArrayList<FutureTask<T>>(executors.size());
+    for (final Executor<T> each : executors) {
+      futures.add(task.track(new FutureTask<T>(() -> each.execute())));
+    }
 
-      try {
-        return future.get(50, TimeUnit.MILLISECONDS);
+    // each worker takes the next pending executor as soon as it is done with the previous one
+    final Queue<FutureTask<T>> pending = new ConcurrentLinkedQueue<FutureTask<T>>(futures);
+    List<Future<?>> workers = new ArrayList<Future<?>>(threads);
+    try {
+      for (int i = 0; i < Math.min(threads, executors.size()); i++) {
+        workers.add(task.track(ExecutorManager.execute(() -> {
+          FutureTask<T> next;
+          while ((next = pending.poll()) != null) {
+            next.run();
+          }
+          return null;
+        })));
       }
-      catch (TimeoutException ignore) {
+      for (FutureTask<T> each : futures) {
+        result.add(waitFor(task, each));
       }
-      catch (ExecutionException e) {
-        Throwable cause = e.getCause();
-        if (cause instanceof MavenProcessCanceledRuntimeException) {
-          throw new MavenServerProcessCanceledException();
-        }
-        if (cause instanceof RuntimeRemoteException) {
-          throw ((RuntimeRemoteException)cause).getCause();
-        }
-        throw getRethrowable(cause);
+      return result;
+    }
+    finally {
+      pending.clear();
+      for (Future<T> each : futures) {
+        each.cancel(true);
+        task.untrack(each);
+      }
+      for (Future<?> each : workers) {
+        task.untrack(each);
       }
-      catch (InterruptedException e) {
+    }
+  }
+
+  /**
+   * Blocks until the future is done; {@link LongRunningTask#cancel()} cancels the futures of the task, which ends the wait at once.
+   */
+  @NotNull
+  private <T> T waitFor(@NotNull LongRunningTask task, Future<T> future) throws MavenServerProcessCanceledException, RemoteException {
+    if (task.isCanceled()) throw new MavenServerProcessCanceledException();
+
+    try {
+      return future.get();
+    }
+    catch (CancellationException e) {
+      throw new MavenServerProcessCanceledException();
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof MavenProcessCanceledRuntimeException) {
         throw new MavenServerProcessCanceledException();
       }
+      if (cause instanceof RuntimeRemoteException) {
+        throw ((RuntimeRemoteException)cause).getCause();
+      }
+      throw getRethrowable(cause);
+    }
+    catch (InterruptedException e) {
+      throw new MavenServerProcessCanceledException();
     }
   }
 
@@ -575,16 +998,32 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
   }
 
 
-  private void setConsoleAndIndicator(MavenServerConsoleIndicatorImpl console, MavenServerProgressIndicatorWrapper indicator) {
+  private void setConsoleAndIndicator(MavenServerConsoleIndicatorImpl console, @Nullable LongRunningTask task) {
     myConsoleWrapper.setWrappee(console);
-    myCurrentIndicator = indicator;
 
     WagonManager wagon = getComponent(WagonManager.class);
-    wagon.setDownloadMonitor(indicator == null ? null : new TransferListenerAdapter(indicator));
+    wagon.setDownloadMonitor(task == null ? null : task.getTransferListener());
   }
 
 
+  private void customizeComponents(@NotNull LongRunningTask task) throws MavenServerProcessCanceledException {
+    task.lock(myComponentsLock);
+    try {
+      ((CustomArtifactFactory)getComponent(ProjectArtifactFactory.class)).customize();
+      ((CustomArtifactFactory)getComponent(ArtifactFactory.class)).customize();
+      ((CustomArtifactResolver)getComponent(ArtifactResolver.class)).customize(null, false);
+      ((CustomRepositoryMetadataManager)getComponent(RepositoryMetadataManager.class)).customize(null);
+      ((CustomWagonManager)getComponent(WagonManager.class)).customize(false);
+
+      setConsoleAndIndicator(null, task);
+    }
+    catch (Exception e) {
+      throw wrapToSerializableRuntimeException(e);
+    }
+  }
+
   private void resetComponents() {
+    if (!myComponentsLock.isHeldByCurrentThread()) return;
     try {
       setConsoleAndIndicator(null, null);
 
@@ -593,16 +1032,64 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
       ((CustomArtifactResolver)getComponent(ArtifactResolver.class)).reset();
       ((CustomRepositoryMetadataManager)getComponent(RepositoryMetadataManager.class)).reset();
       ((CustomWagonManager)getComponent(WagonManager.class)).reset();
+
+      if (Boolean.getBoolean(CACHE_STATISTICS_PROPERTY)) reportCacheStatistics();
     }
     catch (Exception e) {
       throw wrapToSerializableRuntimeException(e);
     }
+    finally {
+      myComponentsLock.unlock();
+    }
+  }
+
+  private void reportCacheStatistics() throws RemoteException {
+    CustomWagonManager wagon = (CustomWagonManager)getComponent(WagonManager.class);
+
+    StringBuilder result = new StringBuilder("Maven2 embedder caches:");
+    result.append("\n  repository metadata: ")
+      .append(wagon.getMetadataCacheHits()).append(" hits, ")
+      .append(wagon.getMetadataCacheMisses()).append(" misses");
+    result.append("\n  stub poms: ")
+      .append(CustomArtifact.getStubHits()).append(" hits, ")
+      .append(CustomArtifact.getStubMisses()).append(" misses");
+    if (CustomArtifactFactory.isInterning()) {
+      result.append("\n  interned coordinates: ")
+        .append(CustomArtifactFactory.getInternedCount()).append(" entries, ")
+        .append(CustomArtifactFactory.getInternHits()).append(" hits, ")
+        .append(CustomArtifactFactory.getInternMisses()).append(" misses");
+    }
+    result.append("\n  plugin configurations: ")
+      .append(Maven2ModelConverter.getConfigurationCacheHits()).append(" hits, ")
+      .append(Maven2ModelConverter.getConfigurationCacheMisses()).append(" misses");
+    result.append("\n  interpolated models: ")
+      .append(ourInterpolationCache.size()).append(" entries, ")
+      .append(ourInterpolationCache.getHits()).append(" hits, ")
+      .append(ourInterpolationCache.getMisses()).append(" misses");
+    result.append("\n  native parent models: ")
+      .append(ourNativeModelCache.size()).append(" entries, ")
+      .append(ourNativeModelCache.getHits()).append(" hits, ")
+      .append(ourNativeModelCache.getMisses()).append(" misses");
+    result.append("\n  remote repositories: ").append(myRepositories.size()).append(" entries");
+    for (MavenProjectCache each : myImpl.getProjectCaches()) {
+      result.append("\n  ").append(each.getStatistics());
+    }
+    if (myProjectResolutionCache != null) {
+      result.append("\n  resolved projects: ")
+        .append(myProjectResolutionCache.size()).append(" entries, ")
+        .append(myProjectResolutionCache.getHits()).append(" hits, ")
+        .append(myProjectResolutionCache.getMisses()).append(" misses");
+    }
+    result.append("\n  ").append(ExecutorManager.getStatistics());
+    Maven2ServerGlobals.getLogger().print(result.toString());
   }
 
   @Override
   public void release(MavenToken token) {
     MavenServerUtil.checkToken(token);
     try {
+      if (myProjectResolutionCache != null) myProjectResolutionCache.clear();
+      myRepositories.clear();
       myImpl.release();
     }
     catch (Exception e) {
@@ -613,12 +1100,19 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
   @NotNull
   @Override
   public LongRunningTaskStatus getLongRunningTaskStatus(@NotNull String longRunningTaskId, MavenToken token) throws RemoteException {
-    return LongRunningTaskStatus.EMPTY;
+    MavenServerUtil.checkToken(token);
+    LongRunningTask task = myLongRunningTasks.get(longRunningTaskId);
+    return task == null ? LongRunningTaskStatus.EMPTY : task.getStatus();
   }
 
   @Override
   public boolean cancelLongRunningTask(@NotNull String longRunningTaskId, MavenToken token) throws RemoteException {
-    return false;
+    MavenServerUtil.checkToken(token);
+    LongRunningTask task = myLongRunningTasks.get(longRunningTaskId);
+    if (task == null) return false;
+
+    task.cancel();
+    return true;
   }
 
   @Override
@@ -633,26 +1127,6 @@ public final class Maven2ServerEmbedderImpl extends MavenRemoteObject implements
     return null;
   }
 
-  private void withProjectCachesDo(Consumer<? super Map> func) throws RemoteException {
-    MavenProjectBuilder builder = myImpl.getComponent(MavenProjectBuilder.class);
-    Field field;
-    try {
-      field = builder.getClass().getDeclaredField("rawProjectCache");
-      field.setAccessible(true);
-      func.accept(((Map)field.get(builder)));
-
-      field = builder.getClass().getDeclaredField("processedProjectCache");
-      field.setAccessible(true);
-      func.accept(((Map)field.get(builder)));
-    }
-    catch (NoSuchFieldException | IllegalAccessException e) {
-      Maven2ServerGlobals.getLogger().info(e);
-    }
-    catch (Exception e) {
-      throw wrapToSerializableRuntimeException(e);
-    }
-  }
-
   @Override
   public Set<MavenRemoteRepository> resolveRepositories(@NotNull Collection<MavenRemoteRepository> repositories,
                                                          MavenToken token) throws RemoteException {
@@ -0,0 +1,115 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.idea.maven.server.embedder;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Profile;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.apache.maven.project.ModelUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Interpolated models by a digest of the model content and the project directory, valid for one snapshot of system properties.
+ * Models referring to the build timestamp are not cached.
+ * Callers modify the models they get, so models are copied on the way in and out.
+ */
+final class ModelInterpolationCache {
+  private final int myMaxSize;
+  private final Map<String, Model> myModels;
+  private Properties mySystemProperties;
+  private long myHits;
+  private long myMisses;
+
+  ModelInterpolationCache(int maxSize) {
+    myMaxSize = Math.max(1, maxSize);
+    myModels = new LinkedHashMap<String, Model>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Model> eldest) {
+        return size() > myMaxSize;
+      }
+    };
+  }
+
+  /**
+   * @return key of the interpolation result, or {@code null} if the model can't be cached
+   */
+  @Nullable
+  String getKey(@NotNull Model model, @NotNull File basedir, @NotNull Properties systemProperties) {
+    synchronized (this) {
+      if (!systemProperties.equals(mySystemProperties)) {
+        myModels.clear();
+        mySystemProperties = systemProperties;
+      }
+    }
+
+    StringWriter content = new StringWriter();
+    try {
+      new MavenXpp3Writer().write(content, model);
+    }
+    catch (IOException e) {
+      return null;
+    }
+    // the build start time is not part of the key, so timestamp expressions are interpolated every time
+    if (content.getBuffer().indexOf("build.timestamp") >= 0) return null;
+    // profile sources are not written to XML but are kept in the result
+    for (Object each : model.getProfiles()) {
+      content.append('\n').append(((Profile)each).getSource());
+    }
+    content.append('\n').append(basedir.getAbsolutePath());
+
+    try {
+      byte[] digest = MessageDigest.getInstance("MD5").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+      StringBuilder result = new StringBuilder(digest.length * 2);
+      for (byte each : digest) {
+        result.append(Character.forDigit((each >> 4) & 0xF, 16)).append(Character.forDigit(each & 0xF, 16));
+      }
+      return result.toString();
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Nullable
+  Model get(@NotNull String key) {
+    Model result;
+    synchronized (this) {
+      result = myModels.get(key);
+      if (result == null) {
+        myMisses++;
+        return null;
+      }
+      myHits++;
+    }
+    return ModelUtils.cloneModel(result);
+  }
+
+  void put(@NotNull String key, @NotNull Model model) {
+    Model copy = ModelUtils.cloneModel(model);
+    synchronized (this) {
+      myModels.put(key, copy);
+    }
+  }
+
+  synchronized int size() {
+    return myModels.size();
+  }
+
+  synchronized long getHits() {
+    return myHits;
+  }
+
+  synchronized long getMisses() {
+    return myMisses;
+  }
+}
@@ -23,6 +23,7 @@ import org.codehaus.plexus.interpolation.EnvarBasedValueSource;
 import org.codehaus.plexus.interpolation.InterpolationException;
 import org.codehaus.plexus.interpolation.MapBasedValueSource;
 import org.codehaus.plexus.interpolation.RegexBasedInterpolator;
+import org.codehaus.plexus.interpolation.ValueSource;
 import org.codehaus.plexus.logging.LogEnabled;
 import org.codehaus.plexus.logging.Logger;
 import org.codehaus.plexus.util.StringUtils;
@@ -39,12 +40,40 @@ import java.io.IOException;
 public class MyFileProfileActivator extends DetectedProfileActivator
     implements LogEnabled
 {
+    private static volatile ValueSource ourEnvironment;
+
     private Logger logger;
 
     private final File baseDir;
 
+    private final RegexBasedInterpolator interpolator = new RegexBasedInterpolator();
+
     public MyFileProfileActivator(File baseDir) {
       this.baseDir = baseDir;
+
+      ValueSource environment = getEnvironment();
+      if ( environment != null )
+      {
+          interpolator.addValueSource( environment );
+      }
+      interpolator.addValueSource( new MapBasedValueSource( System.getProperties() ) );
+    }
+
+    private static ValueSource getEnvironment() {
+      ValueSource result = ourEnvironment;
+      if ( result == null )
+      {
+          try
+          {
+              result = new EnvarBasedValueSource();
+              ourEnvironment = result;
+          }
+          catch ( IOException e )
+          {
+              // ignored
+          }
+      }
+      return result;
     }
 
   @Override
@@ -65,17 +94,6 @@ public class MyFileProfileActivator extends DetectedProfileActivator
             // check if the file exists, if it does then the profile will be active
             String fileString = actFile.getExists();
 
-            RegexBasedInterpolator interpolator = new RegexBasedInterpolator();
-            try
-            {
-                interpolator.addValueSource( new EnvarBasedValueSource() );
-            }
-            catch ( IOException e )
-            {
-                // ignored
-            }
-            interpolator.addValueSource( new MapBasedValueSource( System.getProperties() ) );
-
             try
             {
                 if ( StringUtils.isNotEmpty(fileString) )
@@ -95,6 +113,11 @@ public class MyFileProfileActivator extends DetectedProfileActivator
             }
             catch ( InterpolationException e )
             {
+                // no logger if the activator is created directly rather than by the container
+                if ( logger == null )
+                {
+                    return false;
+                }
                 if ( logger.isDebugEnabled() )
                 {
                     logger.debug( "Failed to interpolate missing file location for profile activator: " + fileString, e );
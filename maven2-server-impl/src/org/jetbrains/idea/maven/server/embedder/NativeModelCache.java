@@ -0,0 +1,173 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.idea.maven.server.embedder;
+
+import org.apache.maven.model.Model;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.idea.maven.model.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Parent models converted by {@link Maven2ModelConverter#toNativeModel}, used by {@link Maven2ServerEmbedderImpl#assembleInheritance}.
+ * <p>
+ * A model is stored by its {@link MavenId} and a hash of the fields {@link Maven2ModelConverter#toNativeModel} reads, so it is found
+ * before it is converted. Converted models have no plugins, reporting or dependency management, the parts the inheritance assembler
+ * modifies in a parent, so cached models are shared without copies.
+ */
+final class NativeModelCache {
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final int myMaxSize;
+  private final Map<String, Model> myModels;
+  private long myHits;
+  private long myMisses;
+
+  NativeModelCache(int maxSize) {
+    myMaxSize = Math.max(1, maxSize);
+    myModels = new LinkedHashMap<String, Model>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Model> eldest) {
+        return size() > myMaxSize;
+      }
+    };
+  }
+
+  @NotNull
+  static String getKey(@NotNull MavenModel model) {
+    long hash = hash(FNV_OFFSET, model.getPackaging());
+    hash = hash(hash, model.getName());
+    MavenParent parent = model.getParent();
+    if (parent != null) {
+      hash = hash(hash, parent.getMavenId().getKey());
+      hash = hash(hash, parent.getRelativePath());
+    }
+    hash = hashModelBase(hash, model);
+
+    MavenBuild build = model.getBuild();
+    hash = hashBuildBase(hash, build);
+    hash = hash(hash, build.getOutputDirectory());
+    hash = hash(hash, build.getTestOutputDirectory());
+    hash = hash(hash, build.getSources());
+    hash = hash(hash, build.getTestSources());
+
+    for (MavenProfile each : model.getProfiles()) {
+      hash = hash(hash, each.getId());
+      hash = hash(hash, each.getSource());
+      hash = hashActivation(hash, each.getActivation());
+      hash = hashModelBase(hash, each);
+      hash = hashBuildBase(hash, each.getBuild());
+    }
+    return model.getMavenId().getKey() + "@" + Long.toHexString(hash);
+  }
+
+  private static long hashModelBase(long hash, MavenModelBase base) {
+    hash = hash(hash, base.getModules());
+    // the order of properties depends on how they were added, so entry hashes are summed
+    Properties properties = base.getProperties();
+    long sum = 0;
+    if (properties != null) {
+      for (Map.Entry<Object, Object> each : properties.entrySet()) {
+        sum += hash(hash(FNV_OFFSET, String.valueOf(each.getKey())), String.valueOf(each.getValue()));
+      }
+    }
+    return hash(hash, Long.toHexString(sum));
+  }
+
+  private static long hashBuildBase(long hash, MavenBuildBase build) {
+    hash = hash(hash, build.getFinalName());
+    hash = hash(hash, build.getDefaultGoal());
+    hash = hash(hash, build.getDirectory());
+    hash = hash(hash, build.getFilters());
+    hash = hashResources(hash, build.getResources());
+    return hashResources(hash, build.getTestResources());
+  }
+
+  private static long hashResources(long hash, List<MavenResource> resources) {
+    for (MavenResource each : resources) {
+      hash = hash(hash, each.getDirectory());
+      hash = hash(hash, each.getTargetPath());
+      hash = hash(hash, String.valueOf(each.isFiltered()));
+      hash = hash(hash, each.getIncludes());
+      hash = hash(hash, each.getExcludes());
+    }
+    return hash(hash, "");
+  }
+
+  private static long hashActivation(long hash, MavenProfileActivation activation) {
+    if (activation == null) return hash(hash, (String)null);
+    hash = hash(hash, String.valueOf(activation.isActiveByDefault()));
+    hash = hash(hash, activation.getJdk());
+    MavenProfileActivationOS os = activation.getOs();
+    if (os != null) {
+      hash = hash(hash, os.getArch());
+      hash = hash(hash, os.getFamily());
+      hash = hash(hash, os.getName());
+      hash = hash(hash, os.getVersion());
+    }
+    MavenProfileActivationFile file = activation.getFile();
+    if (file != null) {
+      hash = hash(hash, file.getExists());
+      hash = hash(hash, file.getMissing());
+    }
+    MavenProfileActivationProperty property = activation.getProperty();
+    if (property != null) {
+      hash = hash(hash, property.getName());
+      hash = hash(hash, property.getValue());
+    }
+    return hash;
+  }
+
+  private static long hash(long hash, @Nullable List<String> values) {
+    if (values != null) {
+      for (String each : values) {
+        hash = hash(hash, each);
+      }
+    }
+    return hash(hash, "");
+  }
+
+  /**
+   * FNV-1a over the characters of the value followed by a separator; {@code null} is hashed as a separator alone.
+   */
+  private static long hash(long hash, @Nullable String value) {
+    if (value != null) {
+      for (int i = 0; i < value.length(); i++) {
+        hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+      }
+    }
+    return (hash ^ (value == null ? 0xFFFF : 0xFFFE)) * FNV_PRIME;
+  }
+
+  @Nullable
+  synchronized Model get(@NotNull String key) {
+    Model result = myModels.get(key);
+    if (result == null) {
+      myMisses++;
+    }
+    else {
+      myHits++;
+    }
+    return result;
+  }
+
+  synchronized void put(@NotNull String key, @NotNull Model model) {
+    myModels.put(key, model);
+  }
+
+  synchronized int size() {
+    return myModels.size();
+  }
+
+  synchronized long getHits() {
+    return myHits;
+  }
+
+  synchronized long getMisses() {
+    return myMisses;
+  }
+}
@@ -0,0 +1,169 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.idea.maven.server.embedder;
+
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.maven.embedder.MavenEmbedderLog;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Artifacts that {@link CustomWagonManager} did not find in remote repositories, kept between Maven server restarts.
+ * <p>
+ * Only confirmed absences are stored, by the artifact and the repositories that were asked. An absence is remembered until the
+ * release update policy of one of those repositories says it is out of date, so a forced update ('always') asks them again.
+ * Resolved artifacts are not stored: the resolver asks the wagon only when the local file is missing, so there would be nothing to
+ * reuse. The file is read on first access and written back by {@link #save()}, which drops entries older than {@link #MAX_AGE}.
+ */
+final class PersistentResolutionCache {
+  static final String FILE_NAME = ".idea-maven2-resolution.cache";
+  static final long MAX_AGE = TimeUnit.DAYS.toMillis(30);
+
+  private static final int VERSION = 3;
+  private static final int MAX_KEY_LENGTH = 1 << 20;
+
+  private final File myFile;
+  private final AtomicBoolean myModified = new AtomicBoolean();
+  private volatile Map<String, Long> myEntries;
+
+  PersistentResolutionCache(@NotNull File file) {
+    myFile = file;
+  }
+
+  /**
+   * @param repositories the repositories of the key, their release policies decide whether the absence is still up to date
+   * @return whether the artifact was not found in the same repositories recently and still has no local file
+   */
+  boolean isNotFound(@NotNull String key, @Nullable File artifactFile, @NotNull List<?> repositories) {
+    Map<String, Long> entries = getEntries();
+    Long timestamp = entries.get(key);
+    if (timestamp == null) return false;
+
+    if (isUpToDate(timestamp, repositories) && (artifactFile == null || !artifactFile.exists())) return true;
+
+    if (entries.remove(key, timestamp)) myModified.set(true);
+    return false;
+  }
+
+  private static boolean isUpToDate(long timestamp, List<?> repositories) {
+    Date lastChecked = new Date(timestamp);
+    for (Object each : repositories) {
+      ArtifactRepositoryPolicy policy = ((ArtifactRepository)each).getReleases();
+      if (policy != null && policy.checkOutOfDate(lastChecked)) return false;
+    }
+    return true;
+  }
+
+  void putNotFound(@NotNull String key) {
+    getEntries().put(key, System.currentTimeMillis());
+    myModified.set(true);
+  }
+
+  void remove(@NotNull String key) {
+    if (myEntries != null && myEntries.remove(key) != null) myModified.set(true);
+  }
+
+  void save() {
+    if (myEntries == null || !myModified.compareAndSet(true, false)) return;
+
+    File parent = myFile.getParentFile();
+    File temp = null;
+    try {
+      if (parent != null && !parent.isDirectory() && !parent.mkdirs()) return;
+      temp = File.createTempFile(myFile.getName(), ".tmp", parent);
+
+      long now = System.currentTimeMillis();
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      try {
+        out.writeInt(VERSION);
+        for (Iterator<Map.Entry<String, Long>> it = myEntries.entrySet().iterator(); it.hasNext(); ) {
+          Map.Entry<String, Long> each = it.next();
+          if (now - each.getValue() > MAX_AGE) {
+            it.remove();
+            continue;
+          }
+          // writeUTF is limited to 64K bytes, keys with many repositories may be longer
+          byte[] key = each.getKey().getBytes(StandardCharsets.UTF_8);
+          out.writeBoolean(true);
+          out.writeInt(key.length);
+          out.write(key);
+          out.writeLong(each.getValue());
+        }
+        out.writeBoolean(false);
+      }
+      finally {
+        out.close();
+      }
+
+      try {
+        Files.move(temp.toPath(), myFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch (IOException e) {
+        Files.move(temp.toPath(), myFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      temp = null;
+    }
+    catch (IOException e) {
+      MavenEmbedderLog.LOG.warn(e);
+    }
+    finally {
+      if (temp != null) temp.delete();
+    }
+  }
+
+  @NotNull
+  private Map<String, Long> getEntries() {
+    Map<String, Long> entries = myEntries;
+    if (entries == null) {
+      synchronized (this) {
+        entries = myEntries;
+        if (entries == null) {
+          entries = load();
+          myEntries = entries;
+        }
+      }
+    }
+    return entries;
+  }
+
+  @NotNull
+  private Map<String, Long> load() {
+    Map<String, Long> result = new ConcurrentHashMap<String, Long>();
+    if (!myFile.isFile()) return result;
+
+    try {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(myFile)));
+      try {
+        if (in.readInt() != VERSION) return result;
+        while (in.readBoolean()) {
+          int length = in.readInt();
+          if (length < 0 || length > MAX_KEY_LENGTH) throw new IOException("Invalid key length: " + length);
+          byte[] key = new byte[length];
+          in.readFully(key);
+          result.put(new String(key, StandardCharsets.UTF_8), in.readLong());
+        }
+      }
+      finally {
+        in.close();
+      }
+    }
+    catch (IOException e) {
+      // broken or concurrently written file, start from scratch
+      result.clear();
+      myModified.set(true);
+    }
+    return result;
+  }
+}
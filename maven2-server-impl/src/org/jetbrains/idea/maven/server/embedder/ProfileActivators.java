@@ -0,0 +1,118 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.idea.maven.server.embedder;
+
+import org.apache.maven.model.Activation;
+import org.apache.maven.model.ActivationOS;
+import org.apache.maven.model.ActivationProperty;
+import org.apache.maven.model.Profile;
+import org.apache.maven.profiles.activation.*;
+import org.codehaus.plexus.context.ContextException;
+import org.codehaus.plexus.context.DefaultContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.idea.maven.server.Maven2ServerGlobals;
+
+import java.rmi.RemoteException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Profile activators used by {@link Maven2ServerEmbedderImpl#applyProfiles}, built once for a snapshot of system properties.
+ * <p>
+ * JDK, OS and property activations depend only on the profile's activation and on the environment, so their results are cached by
+ * the activation; file activations depend on the project directory and are evaluated every time.
+ */
+final class ProfileActivators {
+  private static volatile ProfileActivators ourInstance;
+
+  private final Properties mySystemProperties;
+  @Nullable private final ProfileActivator[] myEnvironmentActivators;
+  private final Map<String, Boolean> myEnvironmentActivations = new ConcurrentHashMap<String, Boolean>();
+
+  private ProfileActivators(@NotNull Properties systemProperties) throws RemoteException {
+    mySystemProperties = systemProperties;
+    myEnvironmentActivators = createEnvironmentActivators(systemProperties);
+  }
+
+  @NotNull
+  static ProfileActivators getInstance(@NotNull Properties systemProperties) throws RemoteException {
+    ProfileActivators result = ourInstance;
+    if (result == null || !result.mySystemProperties.equals(systemProperties)) {
+      result = new ProfileActivators(systemProperties);
+      ourInstance = result;
+    }
+    return result;
+  }
+
+  @Nullable
+  private static ProfileActivator[] createEnvironmentActivators(@NotNull Properties systemProperties) throws RemoteException {
+    SystemPropertyProfileActivator sysPropertyActivator = new SystemPropertyProfileActivator();
+    DefaultContext context = new DefaultContext();
+    context.put("SystemProperties", systemProperties);
+    try {
+      sysPropertyActivator.contextualize(context);
+    }
+    catch (ContextException e) {
+      Maven2ServerGlobals.getLogger().error(e);
+      return null;
+    }
+
+    return new ProfileActivator[]{sysPropertyActivator,
+      new JdkPrefixProfileActivator(),
+      new OperatingSystemProfileActivator()};
+  }
+
+  /**
+   * @param fileActivator activator of file-based activations for the project being processed
+   */
+  boolean isActive(@NotNull Profile profile, @NotNull ProfileActivator fileActivator) throws RemoteException {
+    if (myEnvironmentActivators == null) return false;
+
+    if (isActive(profile, fileActivator, null)) return true;
+
+    String key = getEnvironmentKey(profile.getActivation());
+    Boolean result = myEnvironmentActivations.get(key);
+    if (result == null) {
+      boolean[] failed = new boolean[1];
+      result = false;
+      for (ProfileActivator each : myEnvironmentActivators) {
+        if (isActive(profile, each, failed)) {
+          result = true;
+          break;
+        }
+      }
+      // failures are reported on every evaluation, as before
+      if (!failed[0]) myEnvironmentActivations.put(key, result);
+    }
+    return result;
+  }
+
+  private static boolean isActive(@NotNull Profile profile, @NotNull ProfileActivator activator, @Nullable boolean[] failed)
+    throws RemoteException {
+    try {
+      return activator.canDetermineActivation(profile) && activator.isActive(profile);
+    }
+    catch (ProfileActivationException e) {
+      Maven2ServerGlobals.getLogger().warn(e);
+      if (failed != null) failed[0] = true;
+      return false;
+    }
+  }
+
+  @NotNull
+  private static String getEnvironmentKey(@NotNull Activation activation) {
+    StringBuilder result = new StringBuilder();
+    result.append("jdk=").append(activation.getJdk());
+    ActivationOS os = activation.getOs();
+    if (os != null) {
+      result.append("|os=").append(os.getName()).append(',').append(os.getFamily())
+        .append(',').append(os.getArch()).append(',').append(os.getVersion());
+    }
+    ActivationProperty property = activation.getProperty();
+    if (property != null) {
+      result.append("|property=").append(property.getName()).append('=').append(property.getValue());
+    }
+    return result.toString();
+  }
+}
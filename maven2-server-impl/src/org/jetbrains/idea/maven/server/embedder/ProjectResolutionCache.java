@@ -0,0 +1,267 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.idea.maven.server.embedder;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.model.*;
+import org.apache.maven.project.MavenProject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.idea.maven.server.MavenServerExecutionResult;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Results of {@link Maven2ServerEmbedderImpl#resolveProjects} reused while nothing they were built from has changed.
+ * <p>
+ * A result is stored with the requested profiles and with fingerprints of the POM, its parents, their {@code profiles.xml}, the
+ * files and POMs of its resolved dependencies with their parent POMs, the settings files, and the files of settings profile file
+ * activations; POMs and settings are compared by content, other files by length and modification time. System properties are fixed
+ * for an embedder instance and need no tracking. Only results without problems and unresolved artifacts are stored, and only for
+ * projects whose result depends on nothing else: projects with profiles activated by the environment or files, with imported
+ * dependency management, or with version range dependencies are always resolved again.
+ * The least recently used results are dropped when the cache is full.
+ */
+final class ProjectResolutionCache {
+  private final ArtifactRepository myLocalRepository;
+  private final List<File> mySettingsInputs;
+  private final Map<File, Entry> myEntries;
+  // parent POM chains of dependency POMs in the local repository, by the path, length and modification time of the POM
+  private final Map<String, List<File>> myParentPoms = new ConcurrentHashMap<String, List<File>>();
+  private final AtomicLong myHits = new AtomicLong();
+  private final AtomicLong myMisses = new AtomicLong();
+
+  /**
+   * @param settingsInputs settings files and files of settings profile activations, tracked for every result
+   */
+  ProjectResolutionCache(@NotNull ArtifactRepository localRepository, @NotNull List<File> settingsInputs, int maxSize) {
+    myLocalRepository = localRepository;
+    mySettingsInputs = settingsInputs;
+    int max = Math.max(1, maxSize);
+    myEntries = Collections.synchronizedMap(new LinkedHashMap<File, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<File, ProjectResolutionCache.Entry> eldest) {
+        return size() > max;
+      }
+    });
+  }
+
+  @Nullable
+  MavenServerExecutionResult get(@NotNull File file, @NotNull Collection<String> activeProfiles, @NotNull Collection<String> inactiveProfiles) {
+    Entry entry = myEntries.get(file);
+    if (entry != null && entry.myProfiles.equals(profilesKey(activeProfiles, inactiveProfiles))) {
+      if (entry.isUpToDate()) {
+        myHits.incrementAndGet();
+        return entry.myResult;
+      }
+      synchronized (myEntries) {
+        if (myEntries.get(file) == entry) myEntries.remove(file);
+      }
+    }
+    myMisses.incrementAndGet();
+    return null;
+  }
+
+  void put(@NotNull File file,
+           @NotNull Collection<String> activeProfiles,
+           @NotNull Collection<String> inactiveProfiles,
+           @Nullable MavenProject project,
+           @NotNull MavenServerExecutionResult result) {
+    if (project == null || result.projectData == null || !result.problems.isEmpty() || !result.unresolvedArtifacts.isEmpty()
+        || !isReproducible(project)) {
+      myEntries.remove(file);
+      return;
+    }
+
+    List<Fingerprint> inputs = new ArrayList<Fingerprint>();
+    inputs.add(new Fingerprint(file, true));
+    for (File each : mySettingsInputs) {
+      inputs.add(new Fingerprint(each, true));
+    }
+    for (MavenProject each = project; each != null; each = each.getParent()) {
+      if (each.getFile() != null) {
+        if (each != project) inputs.add(new Fingerprint(each.getFile(), true));
+        inputs.add(new Fingerprint(new File(each.getFile().getParentFile(), "profiles.xml"), true));
+      }
+      Artifact parent = each.getParentArtifact();
+      if (parent != null) inputs.add(new Fingerprint(getFile(parent), true));
+    }
+    Set<File> dependencyPoms = new LinkedHashSet<File>();
+    for (Object each : project.getArtifacts()) {
+      Artifact artifact = (Artifact)each;
+      File artifactFile = getFile(artifact);
+      if ("pom".equals(artifact.getType())) {
+        dependencyPoms.add(artifactFile);
+      }
+      else {
+        inputs.add(new Fingerprint(artifactFile, false));
+        if (artifactFile.getParentFile() != null) {
+          dependencyPoms.add(new File(artifactFile.getParentFile(), artifact.getArtifactId() + "-" + artifact.getBaseVersion() + ".pom"));
+        }
+      }
+    }
+    for (File each : new ArrayList<File>(dependencyPoms)) {
+      dependencyPoms.addAll(getParentPoms(each));
+    }
+    for (File each : dependencyPoms) {
+      inputs.add(new Fingerprint(each, true));
+    }
+
+    myEntries.put(file, new Entry(profilesKey(activeProfiles, inactiveProfiles), inputs, result));
+  }
+
+  void clear() {
+    myEntries.clear();
+    myParentPoms.clear();
+  }
+
+  long getHits() {
+    return myHits.get();
+  }
+
+  long getMisses() {
+    return myMisses.get();
+  }
+
+  int size() {
+    return myEntries.size();
+  }
+
+  /**
+   * @return whether the result depends only on the files tracked by fingerprints, the requested profiles and the embedder settings
+   */
+  private static boolean isReproducible(@NotNull MavenProject project) {
+    for (MavenProject each = project; each != null; each = each.getParent()) {
+      Model model = each.getOriginalModel() != null ? each.getOriginalModel() : each.getModel();
+      for (Object profile : model.getProfiles()) {
+        Activation activation = ((Profile)profile).getActivation();
+        if (activation != null && (activation.getJdk() != null || activation.getOs() != null
+                                   || activation.getProperty() != null || activation.getFile() != null)) {
+          return false;
+        }
+      }
+      DependencyManagement dependencyManagement = model.getDependencyManagement();
+      if (dependencyManagement != null) {
+        for (Object dependency : dependencyManagement.getDependencies()) {
+          if ("import".equals(((Dependency)dependency).getScope())) return false;
+        }
+      }
+    }
+    for (Object each : project.getArtifacts()) {
+      VersionRange range = ((Artifact)each).getVersionRange();
+      if (range != null && range.getRecommendedVersion() == null) return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return the parents of a POM in the local repository, from the closest one, including the first missing one
+   */
+  @NotNull
+  private List<File> getParentPoms(@NotNull File pom) {
+    String key = pom.getPath() + ":" + pom.length() + ":" + pom.lastModified();
+    List<File> result = myParentPoms.get(key);
+    if (result != null) return result;
+
+    result = new ArrayList<File>();
+    File basedir = new File(myLocalRepository.getBasedir());
+    Set<File> visited = new HashSet<File>();
+    File each = pom;
+    while (each.isFile() && visited.add(each)) {
+      Model model = Maven2ServerEmbedderImpl.readRawModel(each);
+      Parent parent = model == null ? null : model.getParent();
+      File parentPom = parent == null ? null : Maven2ServerEmbedderImpl.getRepositoryPom(basedir, parent);
+      if (parentPom == null) break;
+      result.add(parentPom);
+      each = parentPom;
+    }
+    myParentPoms.put(key, result);
+    return result;
+  }
+
+  @NotNull
+  private File getFile(@NotNull Artifact artifact) {
+    File result = artifact.getFile();
+    return result != null ? result : new File(myLocalRepository.getBasedir(), myLocalRepository.pathOf(artifact));
+  }
+
+  @NotNull
+  private static String profilesKey(@NotNull Collection<String> activeProfiles, @NotNull Collection<String> inactiveProfiles) {
+    return activeProfiles + "/" + inactiveProfiles;
+  }
+
+  private static final class Entry {
+    private final String myProfiles;
+    private final List<Fingerprint> myInputs;
+    private final MavenServerExecutionResult myResult;
+
+    private Entry(String profiles, List<Fingerprint> inputs, MavenServerExecutionResult result) {
+      myProfiles = profiles;
+      myInputs = inputs;
+      myResult = result;
+    }
+
+    private boolean isUpToDate() {
+      for (Fingerprint each : myInputs) {
+        if (!each.isUpToDate()) return false;
+      }
+      return true;
+    }
+  }
+
+  private static final class Fingerprint {
+    private final File myFile;
+    private final long myLength;
+    private final long myLastModified;
+    @Nullable private final byte[] myDigest;
+
+    private Fingerprint(@NotNull File file, boolean compareContent) {
+      myFile = file;
+      myLength = file.exists() ? file.length() : -1;
+      myLastModified = file.lastModified();
+      myDigest = compareContent && myLength != -1 ? digest(file) : null;
+    }
+
+    private boolean isUpToDate() {
+      long length = myFile.exists() ? myFile.length() : -1;
+      if (length != myLength) return false;
+      if (length == -1 || myFile.lastModified() == myLastModified) return true;
+
+      return myDigest != null && Arrays.equals(myDigest, digest(myFile));
+    }
+
+    @Nullable
+    private static byte[] digest(@NotNull File file) {
+      try {
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        InputStream in = new FileInputStream(file);
+        try {
+          byte[] buffer = new byte[8192];
+          int read;
+          while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+          }
+        }
+        finally {
+          in.close();
+        }
+        return digest.digest();
+      }
+      catch (IOException e) {
+        return null;
+      }
+      catch (NoSuchAlgorithmException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
@@ -6,11 +6,12 @@ import org.jetbrains.idea.maven.server.NativeMavenProjectHolder;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RemoteNativeMavenProjectHolder implements NativeMavenProjectHolder {
-  private static final Map<Integer, Reference<RemoteNativeMavenProjectHolder>> myMap = new HashMap<Integer, Reference<RemoteNativeMavenProjectHolder>>();
+  // holders are created concurrently when projects are resolved in parallel
+  private static final Map<Integer, Reference<RemoteNativeMavenProjectHolder>> myMap = new ConcurrentHashMap<Integer, Reference<RemoteNativeMavenProjectHolder>>();
 
   private final MavenProject myMavenProject;
 
@@ -4,6 +4,7 @@ package org.jetbrains.idea.maven.server.embedder;
 import com.intellij.openapi.util.text.StringUtilRt;
 import org.apache.maven.wagon.events.TransferEvent;
 import org.apache.maven.wagon.events.TransferListener;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.idea.maven.server.Maven2ServerGlobals;
 import org.jetbrains.idea.maven.server.MavenProcessCanceledRuntimeException;
 import org.jetbrains.idea.maven.server.MavenServerDownloadListener;
@@ -16,10 +17,16 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class TransferListenerAdapter implements TransferListener {
   protected final MavenServerProgressIndicator myIndicator;
+  @Nullable private final LongRunningTask myTask;
   private final Map<String, DownloadData> myDownloads = new ConcurrentHashMap<String, DownloadData>();
 
   public TransferListenerAdapter(MavenServerProgressIndicator indicator) {
+    this(indicator, null);
+  }
+
+  TransferListenerAdapter(MavenServerProgressIndicator indicator, @Nullable LongRunningTask task) {
     myIndicator = indicator;
+    myTask = task;
   }
 
   @Override
@@ -54,6 +61,7 @@ public class TransferListenerAdapter implements TransferListener {
     String resourceName = event.getResource().getName();
     DownloadData data = myDownloads.get(resourceName);
     data.downloaded += i;
+    if (myTask != null) myTask.bytesTransferred(i);
     updateProgress(resourceName, data);
   }
 
@@ -67,6 +75,7 @@ public class TransferListenerAdapter implements TransferListener {
     String resourceName = event.getResource().getName();
     DownloadData data = myDownloads.remove(resourceName);
     data.finished = true;
+    if (myTask != null) myTask.artifactDownloaded();
     updateProgress(resourceName, data);
   }
 
@@ -22,6 +22,17 @@ public final class UnresolvedArtifactsCollector {
     }
   }
 
+  /**
+   * Same as {@link #retrieveUnresolvedIds(Set)} but reports only the ids from {@code filter} and keeps them collected.
+   */
+  public void retrieveUnresolvedIds(Set<MavenId> result, Set<MavenId> filter) {
+    synchronized (myUnresolvedIds) {
+      for (MavenId each : myUnresolvedIds) {
+        if (filter.contains(each)) result.add(each);
+      }
+    }
+  }
+
   public void collectAndSetResolved(Artifact artifact) {
     if (!artifact.isResolved()) {
       synchronized (myUnresolvedIds) {
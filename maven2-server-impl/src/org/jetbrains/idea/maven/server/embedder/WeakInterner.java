@@ -0,0 +1,131 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.idea.maven.server.embedder;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Returns a canonical instance for values with equal keys. Instances are held weakly and are forgotten once nothing else uses them.
+ * <p>
+ * Values are compared by a key computed on demand instead of {@link Object#equals}, since e.g. equal
+ * {@link org.apache.maven.artifact.versioning.VersionRange}s may have different string forms ({@code 1.0} and {@code 1.0.0}).
+ * Keys are not stored, because a key may be the value itself; values are grouped by the hash of their keys instead.
+ * <p>
+ * Lookups of interned values read an immutable bucket without locking; adding and removing values locks only their bucket.
+ */
+final class WeakInterner<T> {
+  private final Function<T, ?> myKey;
+  private final ConcurrentMap<Integer, Ref<T>[]> myBuckets = new ConcurrentHashMap<Integer, Ref<T>[]>();
+  private final ReferenceQueue<T> myQueue = new ReferenceQueue<T>();
+  private final AtomicInteger mySize = new AtomicInteger();
+  private final LongAdder myHits = new LongAdder();
+  private final LongAdder myMisses = new LongAdder();
+
+  WeakInterner(@NotNull Function<T, ?> key) {
+    myKey = key;
+  }
+
+  T intern(T value) {
+    if (value == null) return null;
+
+    removeCollected();
+
+    Object key = myKey.apply(value);
+    Integer hash = key.hashCode();
+    T existing = find(myBuckets.get(hash), key);
+    if (existing != null) {
+      myHits.increment();
+      return existing;
+    }
+
+    Object[] result = new Object[1];
+    myBuckets.compute(hash, (h, bucket) -> {
+      T found = find(bucket, key);
+      if (found != null) {
+        result[0] = found;
+        return bucket;
+      }
+      result[0] = value;
+      Ref<T> ref = new Ref<T>(value, hash, myQueue);
+      if (bucket == null) return newBucket(ref);
+      Ref<T>[] updated = Arrays.copyOf(bucket, bucket.length + 1);
+      updated[bucket.length] = ref;
+      return updated;
+    });
+
+    if (result[0] != value) {
+      myHits.increment();
+    }
+    else {
+      mySize.incrementAndGet();
+      myMisses.increment();
+    }
+    //noinspection unchecked
+    return (T)result[0];
+  }
+
+  int size() {
+    removeCollected();
+    return mySize.get();
+  }
+
+  long getHits() {
+    return myHits.sum();
+  }
+
+  long getMisses() {
+    return myMisses.sum();
+  }
+
+  @Nullable
+  private T find(@Nullable Ref<T>[] bucket, @NotNull Object key) {
+    if (bucket == null) return null;
+    for (Ref<T> each : bucket) {
+      T existing = each.get();
+      if (existing != null && key.equals(myKey.apply(existing))) return existing;
+    }
+    return null;
+  }
+
+  private void removeCollected() {
+    Object each;
+    while ((each = myQueue.poll()) != null) {
+      Ref<?> ref = (Ref<?>)each;
+      myBuckets.computeIfPresent(ref.myHash, (h, bucket) -> {
+        for (int i = 0; i < bucket.length; i++) {
+          if (bucket[i] != ref) continue;
+
+          mySize.decrementAndGet();
+          if (bucket.length == 1) return null;
+          Ref<T>[] updated = Arrays.copyOf(bucket, bucket.length - 1);
+          System.arraycopy(bucket, i + 1, updated, i, bucket.length - i - 1);
+          return updated;
+        }
+        return bucket;
+      });
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Ref<T>[] newBucket(Ref<T> ref) {
+    return new Ref[]{ref};
+  }
+
+  private static final class Ref<T> extends WeakReference<T> {
+    private final Integer myHash;
+
+    private Ref(T referent, Integer hash, ReferenceQueue<T> queue) {
+      super(referent, queue);
+      myHash = hash;
+    }
+  }
+}
@@ -8,6 +8,7 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.factory.ArtifactFactory;
 import org.apache.maven.artifact.handler.ArtifactHandler;
 import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
+import org.apache.maven.artifact.handler.manager.DefaultArtifactHandlerManager;
 import org.apache.maven.artifact.manager.DefaultWagonManager;
 import org.apache.maven.artifact.manager.WagonManager;
 import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
@@ -16,6 +17,8 @@ import org.apache.maven.artifact.repository.ArtifactRepositoryFactory;
 import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
 import org.apache.maven.artifact.repository.DefaultArtifactRepository;
 import org.apache.maven.artifact.repository.layout.ArtifactRepositoryLayout;
+import org.apache.maven.artifact.repository.metadata.DefaultRepositoryMetadataManager;
+import org.apache.maven.artifact.repository.metadata.RepositoryMetadataManager;
 import org.apache.maven.artifact.resolver.*;
 import org.apache.maven.execution.DefaultMavenExecutionRequest;
 import org.apache.maven.execution.MavenExecutionRequest;
@@ -29,9 +32,11 @@ import org.apache.maven.monitor.event.EventDispatcher;
 import org.apache.maven.plugin.PluginManager;
 import org.apache.maven.profiles.DefaultProfileManager;
 import org.apache.maven.profiles.ProfileManager;
+import org.apache.maven.project.DefaultMavenProjectBuilder;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectBuilder;
 import org.apache.maven.project.ProjectBuilderConfiguration;
+import org.apache.maven.project.artifact.MavenMetadataSource;
 import org.apache.maven.project.interpolation.ModelInterpolationException;
 import org.apache.maven.settings.*;
 import org.codehaus.classworlds.ClassWorld;
@@ -52,11 +57,19 @@ import org.sonatype.plexus.components.sec.dispatcher.SecDispatcherException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public final class MavenEmbedder {
+  /**
+   * Maximum number of projects kept in each of the project builder caches.
+   */
+  public static final String PROJECT_CACHE_SIZE_PROPERTY = "idea.maven2.project.cache.size";
+
   private static final String PROP_MAVEN_HOME = "maven.home";
 
   private final DefaultPlexusContainer myContainer;
@@ -64,6 +77,8 @@ public final class MavenEmbedder {
   private final Logger myLogger;
   private final MavenEmbedderSettings myEmbedderSettings;
   private final ArtifactRepository myLocalRepository;
+  private final Object myExtensionsLock = new Object();
+  private final List<MavenProjectCache> myProjectCaches = new ArrayList<MavenProjectCache>();
   private Properties myUserProperties = new Properties();
 
   private MavenEmbedder(@NotNull DefaultPlexusContainer container,
@@ -77,6 +92,7 @@ public final class MavenEmbedder {
     myLocalRepository = createLocalRepository(embedderSettings);
 
     loadSettings();
+    synchronizeSharedCaches();
   }
 
   private void loadSettings() {
@@ -116,6 +132,58 @@ public final class MavenEmbedder {
     // end copied from DefaultMaven.resolveParameters
   }
 
+  @SuppressWarnings("unchecked")
+  private void synchronizeSharedCaches() {
+    // these components are singletons in the container and keep their caches in plain collections,
+    // while resolveProject may be called for several projects concurrently.
+    MavenProjectBuilder projectBuilder = getComponent(MavenProjectBuilder.class);
+    if (projectBuilder instanceof DefaultMavenProjectBuilder) {
+      replaceField(DefaultMavenProjectBuilder.class, projectBuilder, "rawProjectCache", o -> createProjectCache("raw projects", (Map)o));
+      replaceField(DefaultMavenProjectBuilder.class, projectBuilder, "processedProjectCache",
+                   o -> createProjectCache("processed projects", (Map)o));
+    }
+
+    RepositoryMetadataManager metadataManager = getComponent(RepositoryMetadataManager.class);
+    if (metadataManager instanceof DefaultRepositoryMetadataManager) {
+      replaceField(DefaultRepositoryMetadataManager.class, metadataManager, "cachedMetadata", o -> Collections.synchronizedSet((Set)o));
+    }
+
+    ArtifactMetadataSource metadataSource = getComponent(ArtifactMetadataSource.class);
+    if (metadataSource instanceof MavenMetadataSource) {
+      replaceField(MavenMetadataSource.class, metadataSource, "warnedPoms", o -> Collections.synchronizedSet((Set)o));
+    }
+
+    ArtifactHandlerManager handlerManager = getComponent(ArtifactHandlerManager.class);
+    if (handlerManager instanceof DefaultArtifactHandlerManager) {
+      replaceField(DefaultArtifactHandlerManager.class, handlerManager, "artifactHandlers", o -> Collections.synchronizedMap((Map)o));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private MavenProjectCache createProjectCache(String name, Map contents) {
+    MavenProjectCache result = new MavenProjectCache(name, Math.max(1, Integer.getInteger(PROJECT_CACHE_SIZE_PROPERTY, 5000)));
+    result.putAll(contents);
+    myProjectCaches.add(result);
+    return result;
+  }
+
+  @NotNull
+  public List<MavenProjectCache> getProjectCaches() {
+    return Collections.unmodifiableList(myProjectCaches);
+  }
+
+  private static void replaceField(Class<?> hostClass, Object host, String fieldName, Function<Object, Object> replacement) {
+    try {
+      Field field = hostClass.getDeclaredField(fieldName);
+      field.setAccessible(true);
+      Object value = field.get(host);
+      if (value != null) field.set(host, replacement.apply(value));
+    }
+    catch (NoSuchFieldException | IllegalAccessException e) {
+      MavenEmbedderLog.LOG.warn(e);
+    }
+  }
+
   private String decrypt(String pass) {
     try {
       pass = getComponent(SecDispatcher.class, "maven").decrypt(pass);
@@ -170,13 +238,25 @@ public final class MavenEmbedder {
                                              @NotNull final List<String> activeProfiles,
                                              @NotNull final List<String> inactiveProfiles,
                                              List<ResolutionListener> listeners) {
-    MavenExecutionRequest request = createRequest(file, activeProfiles, inactiveProfiles, Collections.emptyList());
-    ProjectBuilderConfiguration config = request.getProjectBuilderConfiguration();
+    return resolveProject(file, createResolutionBatch(activeProfiles, inactiveProfiles), listeners);
+  }
 
-    request.getGlobalProfileManager().loadSettingsProfiles(mySettings);
+  /**
+   * Creates the state shared by all projects resolved with the same profiles, see {@link ResolutionBatch}.
+   */
+  @NotNull
+  public ResolutionBatch createResolutionBatch(@NotNull List<String> activeProfiles, @NotNull List<String> inactiveProfiles) {
+    ProfileManager profileManager = createProfileManager(activeProfiles, inactiveProfiles, getExecutionProperties());
+    profileManager.loadSettingsProfiles(mySettings);
+    return new ResolutionBatch(profileManager);
+  }
 
-    ProfileManager globalProfileManager = request.getGlobalProfileManager();
-    globalProfileManager.loadSettingsProfiles(request.getSettings());
+  @NotNull
+  public MavenExecutionResult resolveProject(@NotNull final File file,
+                                             @NotNull final ResolutionBatch batch,
+                                             List<ResolutionListener> listeners) {
+    MavenExecutionRequest request = createRequest(file, batch.myProfileManager, Collections.emptyList());
+    ProjectBuilderConfiguration config = request.getProjectBuilderConfiguration();
 
     List<Exception> exceptions = new ArrayList<Exception>();
     MavenProject project;
@@ -187,7 +267,10 @@ public final class MavenEmbedder {
       builder.calculateConcreteState(project, config, false);
 
       // copied from DefaultLifecycleExecutor.execute
-      findExtensions(project);
+      synchronized (myExtensionsLock) {
+        // extensions and wagons are registered in the shared container
+        findExtensions(project, batch);
+      }
       // end copied from DefaultLifecycleExecutor.execute
 
       Artifact projectArtifact = project.getArtifact();
@@ -209,40 +292,54 @@ public final class MavenEmbedder {
     return new MavenExecutionResult(project, exceptions);
   }
 
-  private void findExtensions(MavenProject project) {
+  private void findExtensions(MavenProject project, ResolutionBatch batch) {
     // end copied from DefaultLifecycleExecutor.findExtensions
     ExtensionManager extensionManager = getComponent(ExtensionManager.class);
+    boolean added = false;
     for (Object each : project.getBuildExtensions()) {
+      Extension extension = (Extension)each;
+      String key = extension.getKey() + ":" + extension.getVersion();
+      if (batch.myRegisteredExtensions.contains(key)) continue;
       try {
-        extensionManager.addExtension((Extension)each, project, myLocalRepository);
+        extensionManager.addExtension(extension, project, myLocalRepository);
+        batch.myRegisteredExtensions.add(key);
+        added = true;
       }
       catch (PlexusContainerException | ArtifactResolutionException | ArtifactNotFoundException e) {
         MavenEmbedderLog.LOG.error(e);
       }
     }
-    extensionManager.registerWagons();
+    if (added || !batch.myWagonsRegistered) {
+      extensionManager.registerWagons();
+      batch.myWagonsRegistered = true;
+    }
 
-    Map handlers = findArtifactTypeHandlers(project);
-    getComponent(ArtifactHandlerManager.class).addHandlers(handlers);
+    Map handlers = findArtifactTypeHandlers(project, batch);
+    if (!handlers.isEmpty()) getComponent(ArtifactHandlerManager.class).addHandlers(handlers);
   }
 
   @SuppressWarnings("unchecked")
-  private Map findArtifactTypeHandlers(MavenProject project) {
+  private Map findArtifactTypeHandlers(MavenProject project, ResolutionBatch batch) {
     // end copied from DefaultLifecycleExecutor.findExtensions
     Map result = new HashMap();
     for (Object each : project.getBuildPlugins()) {
       Plugin eachPlugin = (Plugin)each;
 
       if (eachPlugin.isExtensions()) {
-        try {
-          PluginManager pluginManager = getComponent(PluginManager.class);
-          pluginManager.verifyPlugin(eachPlugin, project, mySettings, myLocalRepository);
-          result.putAll(pluginManager.getPluginComponents(eachPlugin, ArtifactHandler.ROLE));
-        }
-        catch (Exception e) {
-          MavenEmbedderLog.LOG.info(e);
-          continue;
+        Map pluginHandlers = batch.myArtifactHandlers.get(eachPlugin.getKey() + ":" + eachPlugin.getVersion());
+        if (pluginHandlers == null) {
+          try {
+            PluginManager pluginManager = getComponent(PluginManager.class);
+            pluginManager.verifyPlugin(eachPlugin, project, mySettings, myLocalRepository);
+            pluginHandlers = pluginManager.getPluginComponents(eachPlugin, ArtifactHandler.ROLE);
+          }
+          catch (Exception e) {
+            MavenEmbedderLog.LOG.info(e);
+            continue;
+          }
+          batch.myArtifactHandlers.put(eachPlugin.getKey() + ":" + eachPlugin.getVersion(), pluginHandlers);
         }
+        result.putAll(pluginHandlers);
 
         for (Object o : result.values()) {
           ArtifactHandler handler = (ArtifactHandler)o;
@@ -382,16 +479,18 @@ public final class MavenEmbedder {
   }
 
   private MavenExecutionRequest createRequest(File file, List<String> activeProfiles, List<String> inactiveProfiles, List<String> goals) {
-    Properties executionProperties = myEmbedderSettings.getProperties();
-    if (executionProperties == null) executionProperties = new Properties();
+    return createRequest(file, createProfileManager(activeProfiles, inactiveProfiles, getExecutionProperties()), goals);
+  }
+
+  private MavenExecutionRequest createRequest(File file, ProfileManager profileManager, List<String> goals) {
+    Properties executionProperties = getExecutionProperties();
 
     DefaultEventDispatcher dispatcher = new DefaultEventDispatcher();
     dispatcher.addEventMonitor(new DefaultEventMonitor(myLogger));
 
     // subclassing because in DefaultMavenExecutionRequest field isRecursive is always false
     MavenExecutionRequest result = new DefaultMavenExecutionRequest(myLocalRepository, mySettings, dispatcher, goals, file.getParent(),
-                                                                    createProfileManager(activeProfiles, inactiveProfiles,
-                                                                                         executionProperties), executionProperties,
+                                                                    profileManager, executionProperties,
                                                                     myUserProperties, true) {
       private boolean myIsRecursive;
 
@@ -412,6 +511,11 @@ public final class MavenEmbedder {
     return result;
   }
 
+  private Properties getExecutionProperties() {
+    Properties result = myEmbedderSettings.getProperties();
+    return result == null ? new Properties() : result;
+  }
+
   private MavenExecutionResult handleException(Throwable e) {
     ExceptionUtilRt.rethrowUnchecked(e);
 
@@ -570,5 +674,19 @@ public final class MavenEmbedder {
   public void setUserProperties(@Nullable Properties userProperties) {
     myUserProperties = userProperties == null ? new Properties() : userProperties;
   }
-}
 
+  /**
+   * State shared by the projects resolved in one batch: the profile manager with settings profiles, extensions already registered
+   * in the container and artifact handlers of extension plugins, so that they are not loaded again for every module.
+   */
+  public static final class ResolutionBatch {
+    private final ProfileManager myProfileManager;
+    private final Set<String> myRegisteredExtensions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Map<String, Map> myArtifactHandlers = new ConcurrentHashMap<String, Map>();
+    private volatile boolean myWagonsRegistered;
+
+    private ResolutionBatch(@NotNull ProfileManager profileManager) {
+      myProfileManager = profileManager;
+    }
+  }
+}
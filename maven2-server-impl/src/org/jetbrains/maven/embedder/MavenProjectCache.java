@@ -0,0 +1,118 @@
+// Copyright 2000-2021 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.jetbrains.maven.embedder;
+
+import org.apache.maven.project.MavenProject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Replacement for the project caches of {@link org.apache.maven.project.DefaultMavenProjectBuilder}: holds at most a given number
+ * of projects, evicting the least recently used ones, and drops a project once its POM file changed on disk.
+ */
+public final class MavenProjectCache extends AbstractMap<Object, Object> {
+  private final String myName;
+  private final int myMaxSize;
+  private final LinkedHashMap<Object, CachedProject> myEntries;
+
+  private long myHits;
+  private long myMisses;
+  private long myEvictions;
+  private long myInvalidations;
+
+  public MavenProjectCache(@NotNull String name, int maxSize) {
+    myName = name;
+    myMaxSize = maxSize;
+    myEntries = new LinkedHashMap<Object, CachedProject>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, CachedProject> eldest) {
+        if (size() <= myMaxSize) return false;
+        myEvictions++;
+        return true;
+      }
+    };
+  }
+
+  @Override
+  public synchronized Object get(Object key) {
+    CachedProject entry = myEntries.get(key);
+    if (entry != null && !entry.isUpToDate()) {
+      myEntries.remove(key);
+      myInvalidations++;
+      entry = null;
+    }
+
+    if (entry == null) {
+      myMisses++;
+      return null;
+    }
+    myHits++;
+    return entry.myValue;
+  }
+
+  @Override
+  public synchronized boolean containsKey(Object key) {
+    CachedProject entry = myEntries.get(key);
+    return entry != null && entry.isUpToDate();
+  }
+
+  @Override
+  public synchronized Object put(Object key, Object value) {
+    CachedProject old = myEntries.put(key, new CachedProject(value));
+    return old == null ? null : old.myValue;
+  }
+
+  @Override
+  public synchronized Object remove(Object key) {
+    CachedProject old = myEntries.remove(key);
+    return old == null ? null : old.myValue;
+  }
+
+  @Override
+  public synchronized int size() {
+    return myEntries.size();
+  }
+
+  @Override
+  public synchronized void clear() {
+    myEntries.clear();
+  }
+
+  @NotNull
+  @Override
+  public synchronized Set<Map.Entry<Object, Object>> entrySet() {
+    Map<Object, Object> result = new LinkedHashMap<Object, Object>();
+    for (Map.Entry<Object, CachedProject> each : myEntries.entrySet()) {
+      result.put(each.getKey(), each.getValue().myValue);
+    }
+    return Collections.unmodifiableSet(result.entrySet());
+  }
+
+  @NotNull
+  public synchronized String getStatistics() {
+    return myName + ": " + myEntries.size() + "/" + myMaxSize + " entries, " +
+           myHits + " hits, " + myMisses + " misses, " +
+           myEvictions + " evictions, " + myInvalidations + " invalidations";
+  }
+
+  private static final class CachedProject {
+    private final Object myValue;
+    @Nullable private final File myFile;
+    private final long myLength;
+    private final long myLastModified;
+
+    private CachedProject(Object value) {
+      myValue = value;
+      File file = value instanceof MavenProject ? ((MavenProject)value).getFile() : null;
+      myFile = file == null ? null : file.getAbsoluteFile();
+      myLength = myFile == null ? 0 : myFile.length();
+      myLastModified = myFile == null ? 0 : myFile.lastModified();
+    }
+
+    private boolean isUpToDate() {
+      return myFile == null || myFile.length() == myLength && myFile.lastModified() == myLastModified;
+    }
+  }
+}